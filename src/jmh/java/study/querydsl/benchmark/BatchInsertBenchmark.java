@@ -0,0 +1,69 @@
+package study.querydsl.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.persistence.EntityManager;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberJpaRepository;
+
+// 대량 저장 처리량 (rows/s)
+// jdbcBatchSize=1 은 row 마다 insert 를 한 번씩 보내는 기존 방식
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@OperationsPerInvocation(BatchInsertBenchmark.ROWS)
+public class BatchInsertBenchmark {
+	
+	static final int ROWS = 10000;
+	
+	@Param({"1", "100"})
+	int jdbcBatchSize;
+	
+	BenchmarkContext context;
+	MemberJpaRepository memberJpaRepository;
+	Team team;
+	
+	@Setup(Level.Trial)
+	public void setUp() {
+		context = new BenchmarkContext("spring.jpa.properties.hibernate.jdbc.batch_size=" + jdbcBatchSize);
+		memberJpaRepository = context.getBean(MemberJpaRepository.class);
+		team = context.transactionTemplate().execute(status -> {
+			Team team = new Team("team");
+			context.getBean(EntityManager.class).persist(team);
+			return team;
+		});
+	}
+	
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+	
+	@Benchmark
+	public void saveAll() {
+		List<Member> members = new ArrayList<>(ROWS);
+		for(int i = 0; i < ROWS; i++) {
+			Member member = new Member("member" + i, i % 100);
+			member.setTeam(team); // changeTeam 은 team.members 에 계속 쌓이므로 사용하지 않음
+			members.add(member);
+		}
+		memberJpaRepository.saveAll(members);
+	}
+	
+}
@@ -0,0 +1,70 @@
+package study.querydsl.benchmark;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import study.querydsl.QuerydslApplication;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+// 벤치마크용 스프링 컨텍스트 (웹 서버 없이, 임베디드 H2)
+// username 전문 검색 색인은 끈다 -> member insert / update 마다 색인 트리거가 같이 측정되지 않게
+// 필요한 벤치마크만 properties 로 다시 켠다 (뒤에 넘긴 값이 우선)
+public class BenchmarkContext implements AutoCloseable {
+	
+	private final ConfigurableApplicationContext context;
+	
+	public BenchmarkContext(String... properties) {
+		this.context = new SpringApplicationBuilder(QuerydslApplication.class)
+				.web(WebApplicationType.NONE)
+				.logStartupInfo(false)
+				.properties("logging.level.root=warn", "member.search.full-text.enabled=false")
+				.properties(properties)
+				.run();
+	}
+	
+	public <T> T getBean(Class<T> type) {
+		return context.getBean(type);
+	}
+	
+	public EntityManager createEntityManager() {
+		return context.getBean(EntityManagerFactory.class).createEntityManager();
+	}
+	
+	public TransactionTemplate transactionTemplate() {
+		return context.getBean(TransactionTemplate.class);
+	}
+	
+	// team 10개에 member 를 나눠서 저장
+	public void loadMembers(int count) {
+		transactionTemplate().executeWithoutResult(status -> {
+			EntityManager em = context.getBean(EntityManager.class);
+			Team[] teams = new Team[10];
+			for(int i = 0; i < teams.length; i++) {
+				teams[i] = new Team("team" + i);
+				em.persist(teams[i]);
+			}
+			for(int i = 0; i < count; i++) {
+				em.persist(new Member("member" + i, i % 100, teams[i % teams.length]));
+				if(i % 1000 == 0) {
+					em.flush();
+					em.clear();
+					for(int j = 0; j < teams.length; j++) {
+						teams[j] = em.getReference(Team.class, teams[j].getId());
+					}
+				}
+			}
+		});
+	}
+	
+	@Override
+	public void close() {
+		context.close();
+	}
+	
+}
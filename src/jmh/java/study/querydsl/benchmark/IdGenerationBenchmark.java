@@ -0,0 +1,59 @@
+package study.querydsl.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import study.querydsl.entity.Member;
+import study.querydsl.repository.MemberJpaRepository;
+
+// id 생성 방식별 insert 처리량 (rows/s)
+// allocationSize=1 : insert 마다 nextval 호출 (기존 @GeneratedValue 기본 설정과 같은 비용)
+// allocationSize=50 : pooled-lo, 50 row 마다 nextval 한 번
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@OperationsPerInvocation(IdGenerationBenchmark.ROWS)
+public class IdGenerationBenchmark {
+	
+	static final int ROWS = 10000;
+	
+	@Param({"1", "50"})
+	int allocationSize;
+	
+	BenchmarkContext context;
+	MemberJpaRepository memberJpaRepository;
+	
+	@Setup(Level.Trial)
+	public void setUp() {
+		context = new BenchmarkContext("member.id.allocation-size=" + allocationSize);
+		memberJpaRepository = context.getBean(MemberJpaRepository.class);
+	}
+	
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+	
+	@Benchmark
+	public void insert() {
+		List<Member> members = new ArrayList<>(ROWS);
+		for(int i = 0; i < ROWS; i++) {
+			members.add(new Member("member" + i, i % 100));
+		}
+		memberJpaRepository.saveAll(members);
+	}
+	
+}
@@ -0,0 +1,107 @@
+package study.querydsl.benchmark;
+
+import static study.querydsl.entity.QMember.member;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.persistence.EntityManager;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Projections;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+
+import study.querydsl.dto.MemberDto;
+import study.querydsl.dto.QMemberDto;
+
+// QuerydslBasicTest 의 dto 조회 방식별 비용 비교
+// 처리량(ops/s)과 -prof gc 의 gc.alloc.rate.norm 을 members 로 나누면 row 당 할당량
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ProjectionBenchmark {
+	
+	@Param({"1000", "10000"})
+	int members;
+	
+	BenchmarkContext context;
+	EntityManager em;
+	JPAQueryFactory queryFactory;
+	
+	@Setup(Level.Trial)
+	public void setUp() {
+		context = new BenchmarkContext();
+		context.loadMembers(members);
+		em = context.createEntityManager();
+		queryFactory = new JPAQueryFactory(em);
+	}
+	
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		em.close();
+		context.close();
+	}
+	
+	// setter 로 주입
+	@Benchmark
+	public List<MemberDto> bean() {
+		return queryFactory
+				.select(Projections.bean(MemberDto.class, member.username, member.age))
+				.from(member)
+				.fetch();
+	}
+	
+	// 필드에 직접 주입 (reflection)
+	@Benchmark
+	public List<MemberDto> fields() {
+		return queryFactory
+				.select(Projections.fields(MemberDto.class, member.username, member.age))
+				.from(member)
+				.fetch();
+	}
+	
+	// 생성자 (타입으로 생성자를 찾음)
+	@Benchmark
+	public List<MemberDto> constructor() {
+		return queryFactory
+				.select(Projections.constructor(MemberDto.class, member.username, member.age))
+				.from(member)
+				.fetch();
+	}
+	
+	// @QueryProjection 으로 생성된 QMemberDto
+	@Benchmark
+	public List<MemberDto> queryProjection() {
+		return queryFactory
+				.select(new QMemberDto(member.username, member.age))
+				.from(member)
+				.fetch();
+	}
+	
+	// Tuple 로 받아서 직접 변환
+	@Benchmark
+	public List<MemberDto> tuple() {
+		List<Tuple> tuples = queryFactory
+				.select(member.username, member.age)
+				.from(member)
+				.fetch();
+		List<MemberDto> result = new ArrayList<>(tuples.size());
+		for(Tuple tuple : tuples) {
+			result.add(new MemberDto(tuple.get(member.username), tuple.get(member.age)));
+		}
+		return result;
+	}
+	
+}
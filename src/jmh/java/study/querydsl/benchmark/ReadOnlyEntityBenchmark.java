@@ -0,0 +1,67 @@
+package study.querydsl.benchmark;
+
+import static study.querydsl.entity.QMember.member;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.persistence.EntityManager;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+
+import study.querydsl.repository.ReadOnlyQueryFactory;
+
+// member 엔티티 1만 건 조회 + flush (목록 화면에서 엔티티를 읽고 트랜잭션이 끝나는 상황)
+// readOnly=false : 엔티티마다 스냅샷 보관 + flush 때 dirty checking
+// readOnly=true  : ReadOnlyQueryFactory (스냅샷 없음, dirty checking 생략)
+// 스냅샷 배열은 어차피 한 번 만들어졌다가 버려지므로 할당량(gc.alloc.rate.norm)은 비슷하고
+// 차이는 트랜잭션이 끝날 때까지 잡고 있는 메모리(retained)와 flush 시간에서 난다
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ReadOnlyEntityBenchmark {
+	
+	static final int MEMBERS = 10000;
+	
+	@Param({"false", "true"})
+	boolean readOnly;
+	
+	BenchmarkContext context;
+	
+	@Setup(Level.Trial)
+	public void setUp() {
+		context = new BenchmarkContext();
+		context.loadMembers(MEMBERS);
+	}
+	
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+	
+	@Benchmark
+	public int load() {
+		EntityManager em = context.createEntityManager();
+		try {
+			em.getTransaction().begin();
+			JPAQueryFactory queryFactory = readOnly ? new ReadOnlyQueryFactory(em) : new JPAQueryFactory(em);
+			int size = queryFactory.selectFrom(member).fetch().size();
+			em.flush();
+			em.getTransaction().commit();
+			return size;
+		} finally {
+			em.close();
+		}
+	}
+	
+}
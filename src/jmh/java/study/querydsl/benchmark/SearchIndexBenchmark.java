@@ -0,0 +1,130 @@
+package study.querydsl.benchmark;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.monitor.SlowQueryLog;
+import study.querydsl.repository.MemberRepository;
+
+// member 100만 건에서 search 조건 조합별 응답 시간 (인덱스 없음 / 있음)
+// member i : team (i % 1000), age ((i / 1000) % 100) -> 팀마다 모든 나이가 10명씩
+// 시작할 때 search 를 한 번 실행해서 hibernate 가 실제로 만든 SQL 과 실행 계획(EXPLAIN)을 출력한다 (SlowQueryLog)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SearchIndexBenchmark {
+	
+	static final int MEMBERS = 1_000_000;
+	static final int TEAMS = 1000;
+	
+	@Param({"false", "true"})
+	boolean indexes;
+	
+	@Param({"username", "teamName", "ageRange", "teamNameAgeRange"})
+	String shape;
+	
+	BenchmarkContext context;
+	MemberRepository memberRepository;
+	MemberSearchCondition condition;
+	
+	@Setup(Level.Trial)
+	public void setUp() {
+		// 같은 쿼리를 반복하면 H2 가 이전 결과를 재사용하므로 끈다
+		// 측정 중에는 느린 쿼리 EXPLAIN 이 같이 실행되지 않게 기준 시간을 크게 둔다
+		context = new BenchmarkContext("spring.datasource.url=jdbc:h2:mem:search-index;OPTIMIZE_REUSE_RESULTS=FALSE",
+				"member.sql.slow-query.threshold=1h",
+				"member.sql.slow-query.explain=true",
+				"member.sql.slow-query.explain-analyze=false");
+		memberRepository = context.getBean(MemberRepository.class);
+		
+		JdbcTemplate jdbc = new JdbcTemplate(context.getBean(DataSource.class));
+		jdbc.update("insert into team (id, name) select x, 'team' || x from system_range(0, " + (TEAMS - 1) + ")");
+		jdbc.update("insert into member (member_id, username, age, team_id)"
+				+ " select x, 'member' || x, mod(x / " + TEAMS + ", 100), mod(x, " + TEAMS + ")"
+				+ " from system_range(0, " + (MEMBERS - 1) + ")");
+		if(!indexes) {
+			// FK 제약조건이 (team_id, age) 인덱스를 쓰고 있으므로 먼저 제거
+			for(String each : jdbc.queryForList("select constraint_name from information_schema.table_constraints"
+					+ " where table_name = 'MEMBER' and constraint_type = 'FOREIGN KEY'", String.class)) {
+				jdbc.execute("alter table member drop constraint " + each);
+			}
+			jdbc.execute("drop index " + Member.USERNAME_INDEX);
+			jdbc.execute("drop index " + Member.AGE_INDEX);
+			jdbc.execute("drop index " + Member.TEAM_AGE_INDEX);
+			// team 은 기본키(join 에 사용)만 남긴다
+			jdbc.execute("drop index " + Team.NAME_INDEX);
+		}
+		jdbc.execute("analyze");
+		
+		condition = new MemberSearchCondition();
+		switch(shape) {
+			case "username":
+				condition.setUsername("member500000");
+				break;
+			case "teamName":
+				condition.setTeamName("team500");
+				break;
+			case "ageRange":
+				condition.setAgeGoe(30);
+				condition.setAgeLoe(30);
+				break;
+			case "teamNameAgeRange":
+				condition.setTeamName("team500");
+				condition.setAgeGoe(30);
+				condition.setAgeLoe(31);
+				break;
+			default:
+				throw new IllegalArgumentException(shape);
+		}
+		
+		SlowQueryLog.Entry entry = explain();
+		System.out.println("[indexes=" + indexes + ", " + shape + "]\n" + entry.getSql() + "\n" + entry.getExplain());
+	}
+	
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+	
+	@Benchmark
+	public List<MemberTeamDto> search() {
+		return memberRepository.search(condition);
+	}
+	
+	// 측정하는 search 를 기준 시간 0 으로 한 번 실행 -> 실행된 SQL 을 같은 파라미터로 EXPLAIN 한 결과
+	private SlowQueryLog.Entry explain() {
+		SlowQueryLog slowQueryLog = context.getBean(SlowQueryLog.class);
+		slowQueryLog.clear();
+		slowQueryLog.setThreshold(Duration.ZERO);
+		try {
+			memberRepository.search(condition);
+		} finally {
+			slowQueryLog.setThreshold(Duration.ofHours(1));
+		}
+		List<SlowQueryLog.Entry> entries = slowQueryLog.getEntries();
+		if(entries.size() != 1) {
+			throw new IllegalStateException("search 는 SQL 한 번이어야 합니다 : " + entries.size());
+		}
+		return entries.get(0);
+	}
+	
+}
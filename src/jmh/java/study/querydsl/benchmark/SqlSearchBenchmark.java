@@ -0,0 +1,82 @@
+package study.querydsl.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.MemberRepository;
+import study.querydsl.repository.MemberSqlRepository;
+
+// 같은 데이터 / 같은 조건에서 search 를 JPA(querydsl-jpa) 와 querydsl-sql 로 실행
+// member 1만 건, team 10개 -> all : 1만 건, teamName : 1000 건, username : 1 건
+// 둘 다 읽기 전용 트랜잭션 안에서 실행 (커넥션 획득 비용을 같게)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SqlSearchBenchmark {
+	
+	static final int MEMBERS = 10000;
+	
+	@Param({"jpa", "sql"})
+	String path;
+	
+	@Param({"all", "teamName", "username"})
+	String shape;
+	
+	BenchmarkContext context;
+	TransactionTemplate readOnlyTransaction;
+	MemberRepository memberRepository;
+	MemberSqlRepository memberSqlRepository;
+	MemberSearchCondition condition;
+	
+	@Setup(Level.Trial)
+	public void setUp() {
+		context = new BenchmarkContext();
+		context.loadMembers(MEMBERS);
+		readOnlyTransaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+		readOnlyTransaction.setReadOnly(true);
+		memberRepository = context.getBean(MemberRepository.class);
+		memberSqlRepository = context.getBean(MemberSqlRepository.class);
+		
+		condition = new MemberSearchCondition();
+		switch(shape) {
+			case "all":
+				break;
+			case "teamName":
+				condition.setTeamName("team3");
+				break;
+			case "username":
+				condition.setUsername("member5000");
+				break;
+			default:
+				throw new IllegalArgumentException(shape);
+		}
+	}
+	
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+	
+	@Benchmark
+	public List<MemberTeamDto> search() {
+		return readOnlyTransaction.execute(status -> "sql".equals(path)
+				? memberSqlRepository.search(condition)
+				: memberRepository.search(condition));
+	}
+	
+}
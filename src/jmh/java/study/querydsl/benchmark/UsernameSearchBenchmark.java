@@ -0,0 +1,123 @@
+package study.querydsl.benchmark;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.QMemberTeamDto;
+import study.querydsl.repository.MemberRepository;
+
+// member 100만 건에서 username 앞부분 / 단어 검색
+// member i : username 'name{i % 100000} tag{i % 99991}' -> prefix 'name12345' 는 10 건, 단어 'tag12345' 는 10 건
+// prefixLike   : username like 'name12345%' (바인드 파라미터)
+// prefixRange  : search(usernamePrefix) -> username 인덱스 범위 스캔
+// containsLike : username like '%tag12345%' (전체 스캔)
+// fullText     : search(usernameText) -> H2 전문 검색 인덱스
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g") // H2 전문 검색 색인(FT 스키마 테이블)도 메모리 DB 에 올라간다
+public class UsernameSearchBenchmark {
+	
+	static final int MEMBERS = 1_000_000;
+	static final int TEAMS = 1000;
+	
+	@Param({"prefixLike", "prefixRange", "containsLike", "fullText"})
+	String shape;
+	
+	BenchmarkContext context;
+	TransactionTemplate readOnlyTransaction;
+	JPAQueryFactory queryFactory;
+	MemberRepository memberRepository;
+	MemberSearchCondition condition;
+	
+	@Setup(Level.Trial)
+	public void setUp() {
+		// 같은 쿼리를 반복하면 H2 가 이전 결과를 재사용하므로 끈다
+		context = new BenchmarkContext("spring.datasource.url=jdbc:h2:mem:username-search;OPTIMIZE_REUSE_RESULTS=FALSE",
+				"member.search.full-text.enabled=true");
+		readOnlyTransaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+		readOnlyTransaction.setReadOnly(true);
+		queryFactory = context.getBean(JPAQueryFactory.class);
+		memberRepository = context.getBean(MemberRepository.class);
+		
+		// row 마다 트리거로 색인하지 않도록 전문 검색 색인은 데이터를 넣은 뒤 한 번에 만든다 (fullText 일 때만)
+		JdbcTemplate jdbc = new JdbcTemplate(context.getBean(DataSource.class));
+		jdbc.execute("call FT_DROP_INDEX('PUBLIC', 'MEMBER')");
+		jdbc.update("insert into team (id, name) select x, 'team' || x from system_range(0, " + (TEAMS - 1) + ")");
+		jdbc.update("insert into member (member_id, username, age, team_id)"
+				+ " select x, 'name' || mod(x, 100000) || ' tag' || mod(x, 99991), mod(x, 100), mod(x, " + TEAMS + ")"
+				+ " from system_range(0, " + (MEMBERS - 1) + ")");
+		if("fullText".equals(shape)) {
+			jdbc.execute("call FT_CREATE_INDEX('PUBLIC', 'MEMBER', 'USERNAME')");
+		}
+		jdbc.execute("analyze");
+		
+		condition = new MemberSearchCondition();
+		switch(shape) {
+			case "prefixLike":
+			case "containsLike":
+				break;
+			case "prefixRange":
+				condition.setUsernamePrefix("name12345");
+				break;
+			case "fullText":
+				condition.setUsernameText("tag12345");
+				break;
+			default:
+				throw new IllegalArgumentException(shape);
+		}
+	}
+	
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+	
+	@Benchmark
+	public List<MemberTeamDto> search() {
+		return readOnlyTransaction.execute(status -> {
+			switch(shape) {
+				case "prefixLike":
+					return likeQuery().where(member.username.startsWith("name12345")).fetch();
+				case "containsLike":
+					return likeQuery().where(member.username.contains("tag12345")).fetch();
+				default:
+					return memberRepository.search(condition);
+			}
+		});
+	}
+	
+	// search 와 같은 projection / join
+	private JPAQuery<MemberTeamDto> likeQuery() {
+		return queryFactory
+				.select(new QMemberTeamDto(member.id, member.username, member.age, team.id, team.name))
+				.from(member)
+				.leftJoin(member.team, team);
+	}
+	
+}
@@ -0,0 +1,28 @@
+package study.querydsl.config;
+
+import java.util.List;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+// hibernate 에는 StatementInspector 를 하나만 등록할 수 있으므로 여러 개를 순서대로 실행
+public class CompositeStatementInspector implements StatementInspector {
+	
+	private final List<StatementInspector> inspectors;
+	
+	public CompositeStatementInspector(List<StatementInspector> inspectors) {
+		this.inspectors = inspectors;
+	}
+	
+	@Override
+	public String inspect(String sql) {
+		String result = sql;
+		for(StatementInspector inspector : inspectors) {
+			String inspected = inspector.inspect(result);
+			if(inspected != null) {
+				result = inspected;
+			}
+		}
+		return result;
+	}
+	
+}
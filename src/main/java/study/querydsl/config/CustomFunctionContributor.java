@@ -0,0 +1,26 @@
+package study.querydsl.config;
+
+import org.hibernate.boot.MetadataBuilder;
+import org.hibernate.boot.spi.MetadataBuilderContributor;
+import org.hibernate.dialect.function.SQLFunctionTemplate;
+import org.hibernate.type.StandardBasicTypes;
+
+// JPQL 에 없는 SQL 함수를 hibernate 에 등록
+// querydsl 에서는 Expressions.numberTemplate(Long.class, "count_over()") 처럼 이름으로 사용
+public class CustomFunctionContributor implements MetadataBuilderContributor {
+	
+	public static final String COUNT_OVER = "count_over";
+	public static final String MEMBER_TEXT_MATCH = "member_text_match";
+	
+	@Override
+	public void contribute(MetadataBuilder metadataBuilder) {
+		// 윈도우 함수 : 페이징(limit) 적용 전 전체 row 수를 각 row 마다 함께 반환
+		metadataBuilder.applySqlFunction(COUNT_OVER, new SQLFunctionTemplate(StandardBasicTypes.LONG, "count(*) over()"));
+		// member_text_match(member.id, text) = 1 : H2 전문 검색 인덱스에서 text 의 단어가 모두 일치하는 member (MemberFullTextIndex)
+		// JPQL 에서는 FT_SEARCH_DATA 서브쿼리를 쓸 수 없어서 함수로 감싼다
+		metadataBuilder.applySqlFunction(MEMBER_TEXT_MATCH, new SQLFunctionTemplate(StandardBasicTypes.INTEGER,
+				"case when ?1 in (select cast(ft.KEYS[1] as bigint) from FT_SEARCH_DATA(?2, 0, 0) ft"
+				+ " where ft.\"TABLE\" = 'MEMBER') then 1 else 0 end"));
+	}
+	
+}
@@ -0,0 +1,99 @@
+package study.querydsl.config;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.spi.CachingProvider;
+
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.jpa.boot.internal.EntityManagerFactoryBuilderImpl;
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+
+import study.querydsl.entity.PooledSequenceGenerator;
+import study.querydsl.entity.Team;
+import study.querydsl.monitor.SqlStatementCounter;
+import study.querydsl.repository.TeamStatisticsListener;
+
+@Configuration
+public class HibernateConfig {
+	
+	// 2차 캐시 (JCache + caffeine)
+	// region 별로 최대 개수 / 만료 시간을 지정해서 직접 생성한다
+	// 컨텍스트마다 별도의 CacheManager 를 사용 (같은 JVM 에서 여러 DB를 띄우는 테스트에서도 캐시가 섞이지 않게)
+	@Bean(destroyMethod = "close")
+	CacheManager hibernateCacheManager(@Value("${member.cache.team.max-size:1000}") long teamMaxSize,
+			@Value("${member.cache.team.ttl:10m}") Duration teamTtl) {
+		CachingProvider provider = Caching.getCachingProvider(CaffeineCachingProvider.class.getName());
+		CacheManager cacheManager = provider.getCacheManager(
+				URI.create("hibernate:" + UUID.randomUUID()), getClass().getClassLoader());
+		
+		CaffeineConfiguration<Object, Object> team = new CaffeineConfiguration<>();
+		team.setMaximumSize(OptionalLong.of(teamMaxSize));
+		team.setExpireAfterWrite(OptionalLong.of(teamTtl.toNanos()));
+		cacheManager.createCache(Team.CACHE_REGION, team);
+		cacheManager.createCache(Team.NAME_QUERY_CACHE_REGION, new CaffeineConfiguration<>(team));
+		// 쿼리 캐시 무효화 기준 (테이블별 마지막 변경 시각), 만료되면 안 되므로 제한 없이 생성
+		cacheManager.createCache(RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME, new CaffeineConfiguration<>());
+		return cacheManager;
+	}
+	
+	@Bean
+	HibernatePropertiesCustomizer hibernatePropertiesCustomizer(List<StatementInspector> statementInspectors,
+			CacheManager hibernateCacheManager,
+			@Value("${member.cache.statistics:true}") boolean statistics,
+			@Value("${spring.jpa.properties.hibernate.jdbc.batch_size:100}") int jdbcBatchSize,
+			@Value("${spring.jpa.properties.hibernate.default_batch_fetch_size:100}") int batchFetchSize,
+			@Value("${member.id.allocation-size:" + PooledSequenceGenerator.DEFAULT_ALLOCATION_SIZE + "}") int idAllocationSize) {
+		return properties -> {
+			properties.put(EntityManagerFactoryBuilderImpl.METADATA_BUILDER_CONTRIBUTOR, new CustomFunctionContributor());
+			// member 변경 시 team_statistics 증분 갱신, N+1 확인용 연관관계 로드 표시
+			properties.put(EntityManagerFactoryBuilderImpl.INTEGRATOR_PROVIDER,
+					(IntegratorProvider) () -> Arrays.asList(TeamStatisticsListener.integrator(), SqlStatementCounter.integrator()));
+			// 실행되는 SQL 확인 (검색 캐시 무효화, SQL 개수 / N+1 확인)
+			properties.put(AvailableSettings.STATEMENT_INSPECTOR, new CompositeStatementInspector(statementInspectors));
+			// SQL 앞에 원래 JPQL 을 주석으로 붙인다 (느린 쿼리 로그에서 어떤 querydsl 쿼리인지 확인)
+			properties.putIfAbsent(AvailableSettings.USE_SQL_COMMENTS, true);
+			
+			// insert/update 를 batch_size 만큼 모아서 한 번에 전송
+			// 같은 테이블끼리 정렬해야 team/member 가 섞여도 batch 가 끊기지 않는다
+			properties.put(AvailableSettings.STATEMENT_BATCH_SIZE, jdbcBatchSize);
+			properties.putIfAbsent(AvailableSettings.ORDER_INSERTS, true);
+			properties.putIfAbsent(AvailableSettings.ORDER_UPDATES, true);
+			
+			// 지연 로딩(프록시, 컬렉션)을 하나씩이 아니라 batch_fetch_size 개씩 IN 으로 초기화
+			properties.put(AvailableSettings.DEFAULT_BATCH_FETCH_SIZE, batchFetchSize);
+			// in (:ids) 파라미터 개수를 2의 거듭제곱으로 채운다 -> 목록 크기마다 SQL / 쿼리 플랜이 새로 생기지 않게 (usernameText)
+			properties.putIfAbsent(AvailableSettings.IN_CLAUSE_PARAMETER_PADDING, true);
+			
+			// 엔티티별 시퀀스에서 한 번에 할당받는 id 개수 (1 이면 insert 마다 nextval)
+			properties.put(PooledSequenceGenerator.ALLOCATION_SIZE, idAllocationSize);
+			properties.putIfAbsent(AvailableSettings.PREFERRED_POOLED_OPTIMIZER, "pooled-lo");
+			
+			// @Cache 가 붙은 엔티티(Team)만 2차 캐시 사용, 히트/미스는 Statistics 로 확인
+			// 쿼리 캐시는 cacheable 힌트를 준 쿼리(TeamJpaRepository.findByName)만 사용
+			properties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, true);
+			properties.put(AvailableSettings.USE_QUERY_CACHE, true);
+			properties.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+			properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+			properties.putIfAbsent(ConfigSettings.MISSING_CACHE_STRATEGY, "create");
+			properties.put(AvailableSettings.GENERATE_STATISTICS, statistics);
+		};
+	}
+	
+}
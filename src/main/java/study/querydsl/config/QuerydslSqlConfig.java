@@ -0,0 +1,70 @@
+package study.querydsl.config;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.jdbc.support.SQLErrorCodeSQLExceptionTranslator;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.querydsl.sql.SQLExceptionTranslator;
+import com.querydsl.sql.SQLQueryFactory;
+import com.querydsl.sql.SQLTemplates;
+import com.querydsl.sql.SQLTemplatesRegistry;
+
+// querydsl-sql (study.querydsl.sql 의 S* 타입) 로 SQL 을 바로 실행하는 SQLQueryFactory
+// JPA 와 같은 DataSource / 트랜잭션의 커넥션을 사용한다 (JpaTransactionManager 가 커넥션을 DataSource 에 바인딩)
+@Configuration
+public class QuerydslSqlConfig {
+	
+	@Bean
+	com.querydsl.sql.Configuration querydslSqlConfiguration(DataSource dataSource) throws SQLException {
+		SQLTemplates templates;
+		try(Connection connection = dataSource.getConnection()) {
+			templates = new SQLTemplatesRegistry().getTemplates(connection.getMetaData()); // DB 종류에 맞는 방언
+		}
+		com.querydsl.sql.Configuration configuration = new com.querydsl.sql.Configuration(templates);
+		configuration.setExceptionTranslator(new SpringExceptionTranslator(dataSource));
+		return configuration;
+	}
+	
+	@Bean
+	SQLQueryFactory sqlQueryFactory(com.querydsl.sql.Configuration querydslSqlConfiguration, DataSource dataSource) {
+		return new SQLQueryFactory(querydslSqlConfiguration, () -> transactionalConnection(dataSource));
+	}
+	
+	// 쿼리가 끝나도 커넥션을 닫지 않으므로 트랜잭션 안에서만 사용 (트랜잭션이 끝날 때 반납된다)
+	private static Connection transactionalConnection(DataSource dataSource) {
+		if(!TransactionSynchronizationManager.isActualTransactionActive()) {
+			throw new IllegalStateException("SQLQueryFactory 는 트랜잭션 안에서만 사용할 수 있습니다");
+		}
+		return DataSourceUtils.getConnection(dataSource);
+	}
+	
+	// SQLException -> 스프링 DataAccessException (JPA 쪽 리포지토리와 같은 예외 계층)
+	private static class SpringExceptionTranslator implements SQLExceptionTranslator {
+		
+		private final SQLErrorCodeSQLExceptionTranslator translator;
+		
+		SpringExceptionTranslator(DataSource dataSource) {
+			this.translator = new SQLErrorCodeSQLExceptionTranslator(dataSource);
+		}
+		
+		@Override
+		public RuntimeException translate(String sql, List<Object> bindings, SQLException e) {
+			return translator.translate("querydsl-sql", sql, e);
+		}
+		
+		@Override
+		public RuntimeException translate(SQLException e) {
+			return translator.translate("querydsl-sql", null, e);
+		}
+		
+	}
+	
+}
@@ -0,0 +1,52 @@
+package study.querydsl.config;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+
+@Configuration
+public class SearchExecutorConfig {
+	
+	public static final String MEMBER_SEARCH_EXECUTOR = "memberSearchExecutor";
+	public static final String MEMBER_PAGE_EXECUTOR = "memberPageExecutor";
+	
+	// 검색 쿼리를 나눠서 동시에 실행하는 스레드 풀
+	// 스레드마다 커넥션을 하나씩 쓰므로 pool-size 는 커넥션 풀 크기보다 작게 잡는다
+	// 큐가 가득 차면 호출한 스레드가 직접 실행 (요청이 몰려도 스레드/커넥션이 늘어나지 않는다)
+	@Bean(name = MEMBER_SEARCH_EXECUTOR)
+	ThreadPoolTaskExecutor memberSearchExecutor(@Value("${member.search.parallel.pool-size:4}") int poolSize,
+			@Value("${member.search.parallel.queue-capacity:100}") int queueCapacity) {
+		ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+		executor.setThreadNamePrefix("member-search-");
+		executor.setCorePoolSize(poolSize);
+		executor.setMaxPoolSize(poolSize);
+		executor.setQueueCapacity(queueCapacity);
+		executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+		executor.setWaitForTasksToCompleteOnShutdown(true);
+		return executor;
+	}
+	
+	// 페이지 조회의 content / count 쿼리를 동시에 실행하는 전용 스레드 풀 (searchPage*Async)
+	// 메트릭 : executor (실행 시간), executor.idle (큐 대기 시간), executor.active / queued / pool.size ... (name=memberPageExecutor)
+	@Bean(name = MEMBER_PAGE_EXECUTOR, destroyMethod = "shutdown")
+	ExecutorService memberPageExecutor(MeterRegistry meterRegistry,
+			@Value("${member.search.async.pool-size:8}") int poolSize,
+			@Value("${member.search.async.queue-capacity:100}") int queueCapacity) {
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(queueCapacity),
+				new CustomizableThreadFactory("member-page-"),
+				new ThreadPoolExecutor.CallerRunsPolicy());
+		return ExecutorServiceMetrics.monitor(meterRegistry, executor, MEMBER_PAGE_EXECUTOR);
+	}
+	
+}
@@ -0,0 +1,56 @@
+package study.querydsl.controller;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import lombok.RequiredArgsConstructor;
+import study.querydsl.entity.Team;
+import study.querydsl.monitor.QueryPlanCacheMetrics;
+
+// 2차 캐시 region 별 히트/미스, 쿼리 플랜 캐시 히트율 (hibernate.generate_statistics=true 일 때만 집계됨)
+@RestController
+@RequiredArgsConstructor
+public class CacheStatisticsController {
+	
+	private final EntityManagerFactory emf;
+	private final QueryPlanCacheMetrics queryPlanCacheMetrics;
+	
+	@GetMapping("/cache/statistics")
+	public Map<String, Object> statistics() {
+		Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+		
+		Map<String, Object> result = new LinkedHashMap<>();
+		result.put("enabled", statistics.isStatisticsEnabled());
+		result.put(Team.CACHE_REGION, region(statistics.getDomainDataRegionStatistics(Team.CACHE_REGION)));
+		result.put(Team.NAME_QUERY_CACHE_REGION, region(statistics.getQueryRegionStatistics(Team.NAME_QUERY_CACHE_REGION)));
+		result.put("queryPlan", queryPlan(statistics));
+		return result;
+	}
+	
+	private Map<String, Object> region(CacheRegionStatistics region) {
+		Map<String, Object> result = new LinkedHashMap<>();
+		result.put("hit", region.getHitCount());
+		result.put("miss", region.getMissCount());
+		result.put("put", region.getPutCount());
+		result.put("size", region.getElementCountInMemory());
+		return result;
+	}
+	
+	// JPQL 쿼리 플랜 캐시 (조건 순서만 다른 검색이 플랜을 따로 만들고 있지 않은지 확인)
+	private Map<String, Object> queryPlan(Statistics statistics) {
+		Map<String, Object> result = new LinkedHashMap<>();
+		result.put("hit", statistics.getQueryPlanCacheHitCount());
+		result.put("miss", statistics.getQueryPlanCacheMissCount());
+		result.put("hitRatio", queryPlanCacheMetrics.hitRatio());
+		return result;
+	}
+	
+}
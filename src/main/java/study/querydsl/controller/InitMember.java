@@ -1,9 +1,13 @@
 package study.querydsl.controller;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import javax.annotation.PostConstruct;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
@@ -11,6 +15,7 @@ import org.springframework.transaction.annotation.Transactional;
 import lombok.RequiredArgsConstructor;
 import study.querydsl.entity.Member;
 import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberJpaRepository;
 
 @Profile("local") // local로 설정한 profiles가 실행
 @Component
@@ -30,6 +35,9 @@ public class InitMember {
 		@PersistenceContext
 		private EntityManager em;
 		
+		@Autowired
+		private MemberJpaRepository memberJpaRepository;
+		
 		@Transactional
 		public void init() {
 			Team teamA = new Team("teamA");
@@ -37,10 +45,12 @@ public class InitMember {
 			em.persist(teamA);
 			em.persist(teamB);
 			
+			List<Member> members = new ArrayList<>();
 			for(int i = 0; i< 100; i++) {
 				Team selectedTeam = i % 2 == 0 ? teamA : teamB;
-				em.persist(new Member("member" + i, i, selectedTeam));
+				members.add(new Member("member" + i, i, selectedTeam));
 			}
+			memberJpaRepository.saveAll(members); // batch insert
 		}
 		
 	}
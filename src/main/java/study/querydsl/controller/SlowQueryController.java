@@ -0,0 +1,29 @@
+package study.querydsl.controller;
+
+import java.util.List;
+
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import lombok.RequiredArgsConstructor;
+import study.querydsl.monitor.SlowQueryLog;
+
+// 최근 느린 쿼리 (member.sql.slow-query.threshold 이상) 와 실행 계획
+@RestController
+@RequiredArgsConstructor
+public class SlowQueryController {
+	
+	private final SlowQueryLog slowQueryLog;
+	
+	@GetMapping("/sql/slow-queries")
+	public List<SlowQueryLog.Entry> slowQueries() {
+		return slowQueryLog.getEntries();
+	}
+	
+	@DeleteMapping("/sql/slow-queries")
+	public void clear() {
+		slowQueryLog.clear();
+	}
+	
+}
@@ -6,6 +6,8 @@ import lombok.Data;
 public class MemberSearchCondition {
 	
 	private String username;
+	private String usernamePrefix; // username 앞부분 일치 (username 인덱스 범위 스캔)
+	private String usernameText; // username 단어 일치 (전문 검색 인덱스, MemberFullTextIndex)
 	private String teamName;
 	private Integer ageGoe;
 	private Integer ageLoe;
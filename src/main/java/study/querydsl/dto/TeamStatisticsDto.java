@@ -0,0 +1,29 @@
+package study.querydsl.dto;
+
+import com.querydsl.core.annotations.QueryProjection;
+
+import lombok.Data;
+
+@Data
+public class TeamStatisticsDto {
+	
+	private Long teamId;
+	private String teamName;
+	private long memberCount;
+	private long ageSum;
+	private Double ageAvg; // member 가 없으면 null
+	private Integer ageMin;
+	private Integer ageMax;
+	
+	@QueryProjection
+	public TeamStatisticsDto(Long teamId, String teamName, Long memberCount, Long ageSum, Integer ageMin, Integer ageMax) {
+		this.teamId = teamId;
+		this.teamName = teamName;
+		this.memberCount = memberCount != null ? memberCount : 0;
+		this.ageSum = ageSum != null ? ageSum : 0;
+		this.ageAvg = this.memberCount > 0 ? (double) this.ageSum / this.memberCount : null;
+		this.ageMin = ageMin;
+		this.ageMax = ageMax;
+	}
+	
+}
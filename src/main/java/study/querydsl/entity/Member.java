@@ -5,8 +5,14 @@ import javax.persistence.Entity;
 import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
+import javax.persistence.Table;
+
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 
 import lombok.AccessLevel;
 import lombok.Getter;
@@ -15,12 +21,25 @@ import lombok.Setter;
 import lombok.ToString;
 
 @Entity
+@Table(indexes = {
+		@Index(name = Member.USERNAME_INDEX, columnList = "username"),
+		@Index(name = Member.AGE_INDEX, columnList = "age"),
+		@Index(name = Member.TEAM_AGE_INDEX, columnList = "team_id, age")
+})
 @Getter @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @ToString(of = {"id", "username", "age"})
 public class Member {
 	
-	@Id @GeneratedValue
+	// MemberSearchCondition 의 검색 조건별 인덱스
+	// team_id 단독 인덱스는 두지 않는다 (team_id, age) 의 선두 컬럼이 join / FK 인덱스 역할을 한다
+	public static final String USERNAME_INDEX = "idx_member_username";
+	public static final String AGE_INDEX = "idx_member_age";
+	public static final String TEAM_AGE_INDEX = "idx_member_team_age";
+	
+	@Id @GeneratedValue(generator = "member_seq")
+	@GenericGenerator(name = "member_seq", strategy = PooledSequenceGenerator.NAME,
+			parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "member_seq"))
 	@Column(name = "member_id")
 	private Long id;
 	
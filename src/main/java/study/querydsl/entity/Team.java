@@ -6,7 +6,15 @@ import java.util.List;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.OneToMany;
+import javax.persistence.Table;
+
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 
 import lombok.AccessLevel;
 import lombok.Getter;
@@ -15,15 +23,29 @@ import lombok.Setter;
 import lombok.ToString;
 
 @Entity
+@Table(indexes = @Index(name = Team.NAME_INDEX, columnList = "name"))
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Team.CACHE_REGION)
 @Getter @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @ToString(of = {"id", "name"})
 public class Team {
 	
-	@Id @GeneratedValue
+	// 거의 바뀌지 않는 엔티티라 2차 캐시 사용 (member.getTeam() 지연 로딩, em.find, 이름으로 조회)
+	public static final String CACHE_REGION = "team";
+	// 이름으로 조회한 결과(id 목록)를 저장하는 쿼리 캐시, team 테이블에 쓰기가 있으면 무효화된다
+	public static final String NAME_QUERY_CACHE_REGION = "team-by-name";
+	// teamName 검색 조건용 (이름이 같은 팀을 허용하므로 unique 가 아닌 일반 인덱스)
+	public static final String NAME_INDEX = "idx_team_name";
+	
+	@Id @GeneratedValue(generator = "team_seq")
+	@GenericGenerator(name = "team_seq", strategy = PooledSequenceGenerator.NAME,
+			parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "team_seq"))
 	private Long id;
+	
 	private String name;
 	
+	// 지연 로딩 시 영속성 컨텍스트에 있는 다른 Team 의 members 도
+	// hibernate.default_batch_fetch_size 개씩 IN 으로 함께 초기화된다
 	@OneToMany(mappedBy = "team")
 	private List<Member> members = new ArrayList<>();
 	
@@ -0,0 +1,40 @@
+package study.querydsl.entity;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+import org.hibernate.annotations.Immutable;
+import org.hibernate.annotations.Synchronize;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+// 팀별 member 통계 (읽기 모델)
+// member 가 바뀔 때마다 TeamStatisticsListener 가 SQL 로 갱신한다 -> JPA 로는 읽기만 (@Immutable)
+// 조회할 때 아직 flush 하지 않은 member 변경이 있으면 먼저 flush 해서 통계에 반영한다 (@Synchronize)
+// team 을 insert 하면 빈 row 가 같이 생긴다 (SQL 로 직접 넣은 team 은 첫 member 가 생길 때까지 row 가 없을 수 있다)
+@Entity
+@Immutable
+@Synchronize("member")
+@Table(name = "team_statistics")
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@ToString
+public class TeamStatistics {
+	
+	@Id
+	@Column(name = "team_id")
+	private Long teamId;
+	
+	private long memberCount;
+	
+	private long ageSum;
+	
+	// member 가 없으면 null
+	private Integer ageMin;
+	private Integer ageMax;
+}
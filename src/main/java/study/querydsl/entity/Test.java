@@ -4,6 +4,10 @@ import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
 
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+
 import lombok.Getter;
 import lombok.Setter;
 
@@ -11,7 +15,9 @@ import lombok.Setter;
 @Getter @Setter
 public class Test {
 	
-	@Id @GeneratedValue
+	@Id @GeneratedValue(generator = "test_seq")
+	@GenericGenerator(name = "test_seq", strategy = PooledSequenceGenerator.NAME,
+			parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "test_seq"))
 	private Long id;
 	
 }
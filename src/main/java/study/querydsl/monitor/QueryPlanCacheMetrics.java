@@ -0,0 +1,42 @@
+package study.querydsl.monitor;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+// hibernate 쿼리 플랜 캐시 (JPQL -> SQL 변환 결과) 히트/미스
+// 같은 모양의 검색이 같은 JPQL 로 만들어지면 미스는 모양 개수만큼만 늘어나고 히트율이 1 에 가까워진다
+// hibernate.generate_statistics=true 일 때만 집계된다 (member.cache.statistics)
+@Component
+public class QueryPlanCacheMetrics implements MeterBinder {
+	
+	private final Statistics statistics;
+	
+	public QueryPlanCacheMetrics(EntityManagerFactory emf) {
+		this.statistics = emf.unwrap(SessionFactory.class).getStatistics();
+	}
+	
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		FunctionCounter.builder("hibernate.query.plan.cache.hits", statistics, Statistics::getQueryPlanCacheHitCount)
+				.register(registry);
+		FunctionCounter.builder("hibernate.query.plan.cache.misses", statistics, Statistics::getQueryPlanCacheMissCount)
+				.register(registry);
+		Gauge.builder("hibernate.query.plan.cache.hit.ratio", this, QueryPlanCacheMetrics::hitRatio)
+				.register(registry);
+	}
+	
+	public double hitRatio() {
+		long hit = statistics.getQueryPlanCacheHitCount();
+		long total = hit + statistics.getQueryPlanCacheMissCount();
+		return total == 0 ? 0 : (double) hit / total;
+	}
+	
+}
@@ -0,0 +1,89 @@
+package study.querydsl.monitor;
+
+import java.util.StringJoiner;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import study.querydsl.dto.MemberSearchCondition;
+
+// 리포지토리 메서드별 실행 시간 / 결과 row 수 (method, shape 태그)
+// member.repository       : 전체 실행 시간 (outcome=SUCCESS/ERROR, exception) -> 에러율은 outcome 별 count 로 계산
+// member.repository.count : 페이지 조회의 count 쿼리 시간만 따로 (count 를 생략하거나 캐시에서 가져오면 기록 안됨)
+// member.repository.rows  : 반환한 row 수 (벌크 연산은 변경된 row 수)
+// shape 는 검색 조건 중 값이 있는 항목 (username+teamName, none ...) -> 값은 태그에 넣지 않는다
+// spring data 메서드(MemberRepository.findByUsername 등)는 spring.data.repository.invocations 로도 기록된다
+@Component
+public class RepositoryMetrics {
+	
+	public static final String TIMER = "member.repository";
+	public static final String COUNT_TIMER = "member.repository.count";
+	public static final String ROWS = "member.repository.rows";
+	
+	private static final double[] PERCENTILES = {0.5, 0.95, 0.99};
+	
+	private final MeterRegistry registry;
+	
+	public RepositoryMetrics(MeterRegistry registry) {
+		this.registry = registry;
+	}
+	
+	public <T> T record(String method, String shape, Supplier<T> call, ToLongFunction<T> rows) {
+		Timer.Sample sample = Timer.start(registry);
+		String exception = "none";
+		try {
+			T result = call.get();
+			DistributionSummary.builder(ROWS)
+					.tag("method", method)
+					.tag("shape", shape)
+					.publishPercentiles(PERCENTILES)
+					.register(registry)
+					.record(rows.applyAsLong(result));
+			return result;
+		} catch(RuntimeException | Error e) {
+			exception = e.getClass().getSimpleName();
+			throw e;
+		} finally {
+			sample.stop(Timer.builder(TIMER)
+					.tag("method", method)
+					.tag("shape", shape)
+					.tag("outcome", "none".equals(exception) ? "SUCCESS" : "ERROR")
+					.tag("exception", exception)
+					.publishPercentiles(PERCENTILES)
+					.publishPercentileHistogram()
+					.register(registry));
+		}
+	}
+	
+	public long recordCount(String method, String shape, LongSupplier countQuery) {
+		Timer timer = Timer.builder(COUNT_TIMER)
+				.tag("method", method)
+				.tag("shape", shape)
+				.publishPercentiles(PERCENTILES)
+				.register(registry);
+		Timer.Sample sample = Timer.start(registry);
+		try {
+			return countQuery.getAsLong();
+		} finally {
+			sample.stop(timer);
+		}
+	}
+	
+	public static String shape(MemberSearchCondition condition) {
+		StringJoiner shape = new StringJoiner("+");
+		if(StringUtils.hasText(condition.getUsername())) shape.add("username");
+		if(StringUtils.hasText(condition.getUsernamePrefix())) shape.add("usernamePrefix");
+		if(StringUtils.hasText(condition.getUsernameText())) shape.add("usernameText");
+		if(StringUtils.hasText(condition.getTeamName())) shape.add("teamName");
+		if(condition.getAgeGoe() != null) shape.add("ageGoe");
+		if(condition.getAgeLoe() != null) shape.add("ageLoe");
+		return shape.length() == 0 ? "none" : shape.toString();
+	}
+	
+}
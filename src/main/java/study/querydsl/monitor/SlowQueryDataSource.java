@@ -0,0 +1,97 @@
+package study.querydsl.monitor;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.TreeMap;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+// PreparedStatement 실행 시간을 재서 SlowQueryLog 에 넘기는 DataSource
+// StatementInspector 는 SQL 만 볼 수 있고 실행 시간 / 바인딩 값은 알 수 없어서 JDBC 단에서 감싼다
+// hibernate 는 모든 쿼리를 PreparedStatement 로 실행하므로 Statement / CallableStatement 는 감싸지 않는다
+public class SlowQueryDataSource extends DelegatingDataSource {
+	
+	private final SlowQueryLog slowQueryLog;
+	
+	public SlowQueryDataSource(DataSource target, SlowQueryLog slowQueryLog) {
+		super(target);
+		this.slowQueryLog = slowQueryLog;
+	}
+	
+	@Override
+	public Connection getConnection() throws SQLException {
+		return proxy(super.getConnection());
+	}
+	
+	@Override
+	public Connection getConnection(String username, String password) throws SQLException {
+		return proxy(super.getConnection(username, password));
+	}
+	
+	private Connection proxy(Connection connection) {
+		return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {Connection.class},
+				(proxy, method, args) -> {
+					Object result = invoke(connection, method, args);
+					if(result instanceof PreparedStatement && "prepareStatement".equals(method.getName())) {
+						return proxy(connection, (PreparedStatement) result, (String) args[0]);
+					}
+					return result;
+				});
+	}
+	
+	private PreparedStatement proxy(Connection connection, PreparedStatement statement, String sql) {
+		return (PreparedStatement) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {PreparedStatement.class},
+				new StatementHandler(connection, statement, sql));
+	}
+	
+	private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+		try {
+			return method.invoke(target, args);
+		} catch(InvocationTargetException e) {
+			throw e.getTargetException();
+		}
+	}
+	
+	private class StatementHandler implements InvocationHandler {
+		
+		private final Connection connection;
+		private final PreparedStatement statement;
+		private final String sql;
+		private final Map<Integer, Object> parameters = new TreeMap<>();
+		
+		StatementHandler(Connection connection, PreparedStatement statement, String sql) {
+			this.connection = connection;
+			this.statement = statement;
+			this.sql = sql;
+		}
+		
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			String name = method.getName();
+			if(name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+				// setNull(index, sqlType) 은 값 대신 null
+				parameters.put((Integer) args[0], "setNull".equals(name) ? null : args[1]);
+			} else if("clearParameters".equals(name)) {
+				parameters.clear();
+			} else if(name.startsWith("execute") && (args == null || args.length == 0)) {
+				long start = System.nanoTime();
+				Object result = SlowQueryDataSource.invoke(statement, method, args);
+				long elapsed = System.nanoTime() - start;
+				if(slowQueryLog.isSlow(elapsed)) {
+					slowQueryLog.record(connection, sql, parameters, elapsed);
+				}
+				return result;
+			}
+			return SlowQueryDataSource.invoke(statement, method, args);
+		}
+	}
+	
+}
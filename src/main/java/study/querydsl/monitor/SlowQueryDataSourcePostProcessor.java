@@ -0,0 +1,28 @@
+package study.querydsl.monitor;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+
+// 애플리케이션의 DataSource 를 SlowQueryDataSource 로 감싼다 (JPA 도 감싼 DataSource 를 사용)
+@Component
+public class SlowQueryDataSourcePostProcessor implements BeanPostProcessor {
+	
+	// BeanPostProcessor 는 먼저 생성되므로 SlowQueryLog 는 실제로 감쌀 때 가져온다
+	private final ObjectProvider<SlowQueryLog> slowQueryLog;
+	
+	public SlowQueryDataSourcePostProcessor(ObjectProvider<SlowQueryLog> slowQueryLog) {
+		this.slowQueryLog = slowQueryLog;
+	}
+	
+	@Override
+	public Object postProcessAfterInitialization(Object bean, String beanName) {
+		if(bean instanceof DataSource && !(bean instanceof SlowQueryDataSource)) {
+			return new SlowQueryDataSource((DataSource) bean, slowQueryLog.getObject());
+		}
+		return bean;
+	}
+	
+}
@@ -0,0 +1,165 @@
+package study.querydsl.monitor;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+// threshold 보다 오래 걸린 SQL 을 실행 계획(EXPLAIN)과 함께 기록 (SlowQueryDataSource 가 호출)
+// - jpql : hibernate.use_sql_comments=true 일 때 SQL 앞에 붙는 주석 (querydsl 이 만든 JPQL, load 엔티티명 ...)
+// - parameterShape : 바인딩된 파라미터 타입 [String, Integer] (값은 남기지 않는다)
+// - explain : 같은 커넥션 / 같은 파라미터로 바로 실행한 EXPLAIN (select 만)
+//   explain-analyze=true 면 EXPLAIN ANALYZE (쿼리를 한 번 더 실행하므로 로컬에서만)
+@Component
+public class SlowQueryLog {
+	
+	private static final Logger log = LoggerFactory.getLogger(SlowQueryLog.class);
+	
+	private static final Pattern COMMENT = Pattern.compile("^\\s*/\\*(.*?)\\*/\\s*", Pattern.DOTALL);
+	private static final Pattern SELECT_SQL = Pattern.compile("^\\s*select\\b", Pattern.CASE_INSENSITIVE);
+	
+	private volatile long thresholdNanos;
+	private final boolean explain;
+	private final boolean explainAnalyze;
+	private final int historySize;
+	private final Deque<Entry> entries = new ArrayDeque<>();
+	
+	public SlowQueryLog(@Value("${member.sql.slow-query.threshold:500ms}") Duration threshold,
+			@Value("${member.sql.slow-query.explain:true}") boolean explain,
+			@Value("${member.sql.slow-query.explain-analyze:false}") boolean explainAnalyze,
+			@Value("${member.sql.slow-query.history-size:100}") int historySize) {
+		this.thresholdNanos = threshold.toNanos();
+		this.explain = explain;
+		this.explainAnalyze = explainAnalyze;
+		this.historySize = historySize;
+	}
+	
+	// 실행 중에 기준 시간 변경 (특정 구간의 SQL 만 전부 기록할 때, SearchIndexBenchmark)
+	public void setThreshold(Duration threshold) {
+		this.thresholdNanos = threshold.toNanos();
+	}
+	
+	public boolean isSlow(long elapsedNanos) {
+		return elapsedNanos >= thresholdNanos;
+	}
+	
+	// connection 은 프록시가 아닌 실제 커넥션 (EXPLAIN 이 다시 기록되지 않게)
+	void record(Connection connection, String sql, Map<Integer, Object> parameters, long elapsedNanos) {
+		String jpql = null;
+		String statement = sql;
+		Matcher comment = COMMENT.matcher(sql);
+		if(comment.find()) {
+			jpql = comment.group(1).replaceAll("\\s+", " ").trim();
+			statement = sql.substring(comment.end());
+		}
+		
+		String plan = explain && SELECT_SQL.matcher(statement).find()
+				? explain(connection, statement, parameters) : null;
+		
+		Entry entry = new Entry(LocalDateTime.now(), TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+				statement.replaceAll("\\s+", " ").trim(), jpql, parameterShape(parameters), plan);
+		synchronized(entries) {
+			entries.addFirst(entry);
+			while(entries.size() > historySize) {
+				entries.removeLast();
+			}
+		}
+		log.warn("slow query {} ms, jpql: {}, parameters: {}\n{}\n{}",
+				entry.getElapsedMillis(), jpql, entry.getParameterShape(), entry.getSql(), plan);
+	}
+	
+	// 최근 것부터
+	public List<Entry> getEntries() {
+		synchronized(entries) {
+			return new ArrayList<>(entries);
+		}
+	}
+	
+	public void clear() {
+		synchronized(entries) {
+			entries.clear();
+		}
+	}
+	
+	private String explain(Connection connection, String statement, Map<Integer, Object> parameters) {
+		try(PreparedStatement ps = connection.prepareStatement((explainAnalyze ? "explain analyze " : "explain ") + statement)) {
+			for(Map.Entry<Integer, Object> each : parameters.entrySet()) {
+				ps.setObject(each.getKey(), each.getValue());
+			}
+			StringJoiner plan = new StringJoiner("\n");
+			try(ResultSet rs = ps.executeQuery()) {
+				while(rs.next()) {
+					plan.add(rs.getString(1));
+				}
+			}
+			return plan.toString();
+		} catch(SQLException e) {
+			return "explain failed : " + e.getMessage();
+		}
+	}
+	
+	private static String parameterShape(Map<Integer, Object> parameters) {
+		StringJoiner shape = new StringJoiner(", ", "[", "]");
+		parameters.values().forEach(each -> shape.add(each == null ? "null" : each.getClass().getSimpleName()));
+		return shape.toString();
+	}
+	
+	public static class Entry {
+		private final LocalDateTime executedAt;
+		private final long elapsedMillis;
+		private final String sql;
+		private final String jpql;
+		private final String parameterShape;
+		private final String explain;
+		
+		Entry(LocalDateTime executedAt, long elapsedMillis, String sql, String jpql, String parameterShape, String explain) {
+			this.executedAt = executedAt;
+			this.elapsedMillis = elapsedMillis;
+			this.sql = sql;
+			this.jpql = jpql;
+			this.parameterShape = parameterShape;
+			this.explain = explain;
+		}
+		
+		public LocalDateTime getExecutedAt() {
+			return executedAt;
+		}
+		
+		public long getElapsedMillis() {
+			return elapsedMillis;
+		}
+		
+		public String getSql() {
+			return sql;
+		}
+		
+		public String getJpql() {
+			return jpql;
+		}
+		
+		public String getParameterShape() {
+			return parameterShape;
+		}
+		
+		public String getExplain() {
+			return explain;
+		}
+	}
+	
+}
@@ -0,0 +1,31 @@
+package study.querydsl.monitor;
+
+import java.io.IOException;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+// HTTP 요청 하나에서 실행된 SQL 개수 / N+1 을 요청이 끝날 때 로그로 남긴다
+@Component
+public class SqlStatementCountFilter extends OncePerRequestFilter {
+	
+	private final SqlStatementCounter counter;
+	
+	public SqlStatementCountFilter(SqlStatementCounter counter) {
+		this.counter = counter;
+	}
+	
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+			throws ServletException, IOException {
+		try(SqlStatementCounter.Scope scope = counter.start(request.getMethod() + " " + request.getRequestURI())) {
+			filterChain.doFilter(request, response);
+		}
+	}
+	
+}
@@ -0,0 +1,289 @@
+package study.querydsl.monitor;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import org.hibernate.boot.Metadata;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.InitializeCollectionEventListener;
+import org.hibernate.event.spi.LoadEventListener;
+import org.hibernate.event.spi.LoadEventListener.LoadType;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import study.querydsl.config.CompositeStatementInspector;
+
+// 트랜잭션 / HTTP 요청 단위로 실행된 SQL 개수를 세고 N+1 로 보이는 쿼리를 찾는다
+// - 트랜잭션 : 트랜잭션 안에서 첫 SQL 이 실행될 때 자동으로 시작, 끝나면 결과를 로그로 남긴다
+// - HTTP 요청 : SqlStatementCountFilter
+// - 테스트 : try(Scope scope = counter.start()) { ... scope.assertAtMost(1); }
+// 같은 연관관계(프록시 / 즉시 로딩 to-one 엔티티, 지연 로딩 컬렉션)를 초기화하는 select 가
+// 한 범위 안에서 n-plus-one-threshold 번 이상 실행되면 N+1 로 보고 처음 그 횟수에 도달한 호출 위치와 함께 경고한다
+// - 어떤 연관관계를 초기화하는 중인지는 hibernate 로드 이벤트로 안다 (integrator, SQL 주석 설정과 무관)
+// - 직접 실행한 쿼리(같은 finder 를 파라미터만 바꿔서 여러 번 호출)나 em.find 는 N+1 로 보지 않는다
+// - default_batch_fetch_size 로 묶여서 한 번에 초기화되거나 2차 캐시에서 읽으면 select 가 없으므로 세지 않는다
+@Component
+public class SqlStatementCounter implements StatementInspector {
+	
+	private static final Logger log = LoggerFactory.getLogger(SqlStatementCounter.class);
+	
+	private static final Pattern SELECT_SQL = Pattern.compile("^\\s*(?:/\\*.*?\\*/\\s*)?select\\b",
+			Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+	
+	// 호출 위치로 보여줄 애플리케이션 코드 패키지
+	private static final String APPLICATION_PACKAGE = "study.querydsl.";
+	// 호출 위치에서 제외할 인프라 클래스 (내부 클래스 포함)
+	private static final String[] INFRASTRUCTURE_CLASSES = {
+			SqlStatementCounter.class.getName(),
+			SqlStatementCountFilter.class.getName(),
+			CompositeStatementInspector.class.getName()
+	};
+	
+	// 연관관계 초기화로 보는 로드 (GET / LOAD 는 em.find / getReference)
+	private static final LoadType[] ASSOCIATION_LOADS = {
+			LoadEventListener.IMMEDIATE_LOAD, // 프록시 초기화
+			LoadEventListener.INTERNAL_LOAD_EAGER,
+			LoadEventListener.INTERNAL_LOAD_NULLABLE
+	};
+	
+	// 지금 스레드에서 초기화 중인 연관관계 (엔티티 이름 / 컬렉션 role), 안쪽 로드가 맨 앞
+	private static final ThreadLocal<Deque<String>> LOADING = ThreadLocal.withInitial(ArrayDeque::new);
+	
+	private final ThreadLocal<List<Scope>> scopes = new ThreadLocal<>();
+	private final int nPlusOneThreshold;
+	
+	public SqlStatementCounter(@Value("${member.sql.n-plus-one-threshold:5}") int nPlusOneThreshold) {
+		this.nPlusOneThreshold = nPlusOneThreshold;
+	}
+	
+	public Scope start(String name) {
+		List<Scope> current = scopes.get();
+		if(current == null) {
+			current = new ArrayList<>();
+			scopes.set(current);
+		}
+		Scope scope = new Scope(name);
+		current.add(scope);
+		return scope;
+	}
+	
+	public Scope start() {
+		return start("manual");
+	}
+	
+	// 기본 로드 리스너 앞뒤에서 초기화 중인 연관관계를 표시
+	// 로드 중 예외로 뒤 리스너가 실행되지 않으면 범위(트랜잭션 / 요청 / 수동)가 끝날 때 지운다
+	public static Integrator integrator() {
+		return new Integrator() {
+			@Override
+			public void integrate(Metadata metadata, SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+				EventListenerRegistry registry = serviceRegistry.getService(EventListenerRegistry.class);
+				registry.prependListeners(EventType.LOAD, (LoadEventListener) (event, loadType) -> {
+					if(isAssociationLoad(loadType)) {
+						LOADING.get().push(event.getEntityClassName());
+					}
+				});
+				registry.appendListeners(EventType.LOAD, (LoadEventListener) (event, loadType) -> {
+					if(isAssociationLoad(loadType)) {
+						LOADING.get().poll();
+					}
+				});
+				registry.prependListeners(EventType.INIT_COLLECTION,
+						(InitializeCollectionEventListener) event -> LOADING.get().push(event.getCollection().getRole()));
+				registry.appendListeners(EventType.INIT_COLLECTION,
+						(InitializeCollectionEventListener) event -> LOADING.get().poll());
+			}
+			
+			@Override
+			public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+			}
+		};
+	}
+	
+	private static boolean isAssociationLoad(LoadType loadType) {
+		for(LoadType each : ASSOCIATION_LOADS) {
+			if(each == loadType) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	@Override
+	public String inspect(String sql) {
+		startTransactionScope();
+		List<Scope> current = scopes.get();
+		if(current != null) {
+			String association = LOADING.get().peek();
+			for(Scope scope : current) {
+				scope.record(sql, association);
+			}
+		}
+		return sql;
+	}
+	
+	private void startTransactionScope() {
+		if(!TransactionSynchronizationManager.isSynchronizationActive()
+				|| TransactionSynchronizationManager.hasResource(this)) {
+			return;
+		}
+		String name = TransactionSynchronizationManager.getCurrentTransactionName();
+		Scope scope = start("transaction " + (name != null ? name : ""));
+		TransactionSynchronizationManager.bindResource(this, scope);
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCompletion(int status) {
+				TransactionSynchronizationManager.unbindResourceIfPossible(SqlStatementCounter.this);
+				scope.close();
+			}
+		});
+	}
+	
+	public class Scope implements AutoCloseable {
+		
+		private final String name;
+		private int count;
+		private int selectCount;
+		private final Map<String, Integer> associationLoads = new LinkedHashMap<>(); // 연관관계 -> 초기화 select 수
+		private final List<NPlusOne> nPlusOnes = new ArrayList<>();
+		private boolean closed;
+		
+		Scope(String name) {
+			this.name = name;
+		}
+		
+		void record(String sql, String association) {
+			count++;
+			if(!SELECT_SQL.matcher(sql).find()) {
+				return;
+			}
+			selectCount++;
+			if(association == null) {
+				return;
+			}
+			int executions = associationLoads.merge(association, 1, Integer::sum);
+			if(executions == nPlusOneThreshold) {
+				nPlusOnes.add(new NPlusOne(association, sql, callSite()));
+			}
+		}
+		
+		public int getCount() {
+			return count;
+		}
+		
+		public int getSelectCount() {
+			return selectCount;
+		}
+		
+		public List<NPlusOne> getNPlusOnes() {
+			return nPlusOnes;
+		}
+		
+		public void assertAtMost(int expected) {
+			if(count > expected) {
+				throw new AssertionError("expected at most " + expected + " SQL statements but was " + count + describeNPlusOnes());
+			}
+		}
+		
+		public void assertNoNPlusOne() {
+			if(!nPlusOnes.isEmpty()) {
+				throw new AssertionError("N+1 selects detected" + describeNPlusOnes());
+			}
+		}
+		
+		@Override
+		public void close() {
+			if(closed) {
+				return;
+			}
+			closed = true;
+			List<Scope> current = scopes.get();
+			if(current != null) {
+				current.remove(this);
+				if(current.isEmpty()) {
+					scopes.remove();
+					LOADING.remove();
+				}
+			}
+			
+			if(!nPlusOnes.isEmpty()) {
+				log.warn("[{}] {} SQL statements, N+1 selects detected{}", name, count, describeNPlusOnes());
+			} else {
+				log.debug("[{}] {} SQL statements ({} selects)", name, count, selectCount);
+			}
+		}
+		
+		private String describeNPlusOnes() {
+			StringBuilder sb = new StringBuilder();
+			for(NPlusOne each : nPlusOnes) {
+				sb.append("\n - ").append(associationLoads.get(each.getAssociation())).append("x load ").append(each.getAssociation())
+					.append(" at ").append(each.getCallSite())
+					.append(" : ").append(each.getSql().replaceAll("\\s+", " ").trim());
+			}
+			return sb.toString();
+		}
+	}
+	
+	public static class NPlusOne {
+		private final String association;
+		private final String sql;
+		private final String callSite;
+		
+		NPlusOne(String association, String sql, String callSite) {
+			this.association = association;
+			this.sql = sql;
+			this.callSite = callSite;
+		}
+		
+		// 엔티티 이름 (프록시 / to-one) 또는 컬렉션 role
+		public String getAssociation() {
+			return association;
+		}
+		
+		public String getSql() {
+			return sql;
+		}
+		
+		public String getCallSite() {
+			return callSite;
+		}
+	}
+	
+	// 스택에서 hibernate/spring 을 제외한 첫 애플리케이션 코드 위치
+	private static String callSite() {
+		for(StackTraceElement element : new Throwable().getStackTrace()) {
+			String className = element.getClassName();
+			if(className.startsWith(APPLICATION_PACKAGE) && !isInfrastructure(className)) {
+				return element.toString();
+			}
+		}
+		return "unknown";
+	}
+	
+	private static boolean isInfrastructure(String className) {
+		if(className.contains("$HibernateProxy$")) {
+			return true;
+		}
+		for(String each : INFRASTRUCTURE_CLASSES) {
+			if(className.equals(each) || className.startsWith(each + "$")) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+}
@@ -0,0 +1,113 @@
+package study.querydsl.repository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import javax.persistence.EntityManager;
+
+import org.hibernate.engine.spi.EntityEntry;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.engine.spi.Status;
+import org.springframework.stereotype.Component;
+
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.EntityPathBase;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.SimplePath;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.querydsl.jpa.impl.JPAUpdateClause;
+
+import study.querydsl.monitor.RepositoryMetrics;
+
+// 벌크 연산 후 영속성 컨텍스트에서 "영향받은 엔티티만" 제거
+// 벌크 쿼리는 영속성 컨텍스트를 무시하고 DB에 바로 반영되므로 이미 조회한 엔티티는 이전 값을 가지고 있다
+// em.clear() 는 관계없는 엔티티까지 전부 버리기 때문에 큰 작업 단위에서는 다시 조회하는 비용이 크다
+// -> 벌크 실행 전에 영속성 컨텍스트에 있는 해당 타입 엔티티 중 조건에 맞는 id 만 골라서 실행 후 detach
+// 2차 캐시는 hibernate 가 벌크 연산 시 해당 엔티티 region 을 무효화한다
+// 벌크 연산은 hibernate 이벤트가 없으므로 team_statistics 는 TeamStatisticsInvalidator 가 SQL 을 보고 다음 flush 에서 다시 계산한다
+@Component
+public class BulkQueryExecutor {
+	
+	private static final int IN_CHUNK_SIZE = 1000;
+	
+	private final EntityManager em;
+	private final JPAQueryFactory queryFactory;
+	private final RepositoryMetrics metrics;
+	
+	public BulkQueryExecutor(EntityManager em, JPAQueryFactory queryFactory, RepositoryMetrics metrics) {
+		this.em = em;
+		this.queryFactory = queryFactory;
+		this.metrics = metrics;
+	}
+	
+	// ex) update(member, member.age.lt(28), clause -> clause.set(member.username, "비회원"))
+	// 실행 시간 / 변경된 row 수는 member.repository (method=bulkUpdate, shape=엔티티 이름) 로 기록
+	public long update(EntityPathBase<?> entity, Predicate where, Consumer<JPAUpdateClause> updates) {
+		return metrics.record("bulkUpdate", entity.getType().getSimpleName(), () -> doUpdate(entity, where, updates), Long::longValue);
+	}
+	
+	public long delete(EntityPathBase<?> entity, Predicate where) {
+		return metrics.record("bulkDelete", entity.getType().getSimpleName(), () -> doDelete(entity, where), Long::longValue);
+	}
+	
+	private long doUpdate(EntityPathBase<?> entity, Predicate where, Consumer<JPAUpdateClause> updates) {
+		List<Object> affected = affectedManagedEntities(entity, where);
+		
+		JPAUpdateClause clause = queryFactory.update(entity).where(where);
+		updates.accept(clause);
+		long count = clause.execute();
+		
+		affected.forEach(em::detach);
+		return count;
+	}
+	
+	private long doDelete(EntityPathBase<?> entity, Predicate where) {
+		List<Object> affected = affectedManagedEntities(entity, where);
+		
+		long count = queryFactory.delete(entity).where(where).execute();
+		
+		affected.forEach(em::detach);
+		return count;
+	}
+	
+	// 벌크 쿼리가 바꾸기 전에 확인해야 조건 컬럼이 바뀌는 update 도 정확하게 찾을 수 있다
+	private List<Object> affectedManagedEntities(EntityPathBase<?> entity, Predicate where) {
+		em.flush(); // 아직 반영 안된 변경이 벌크 쿼리에 덮어써지지 않도록
+		
+		Map<Object, Object> managed = new HashMap<>(); // id -> entity
+		SessionImplementor session = em.unwrap(SessionImplementor.class);
+		for(Map.Entry<Object, EntityEntry> entry : session.getPersistenceContextInternal().reentrantSafeEntityEntries()) {
+			if(entity.getType().isInstance(entry.getKey()) && entry.getValue().getStatus() == Status.MANAGED) {
+				managed.put(entry.getValue().getId(), entry.getKey());
+			}
+		}
+		if(managed.isEmpty() || where == null) {
+			return new ArrayList<>(managed.values());
+		}
+		
+		String idName = em.getMetamodel().entity(entity.getType()).getId(Object.class).getName();
+		SimplePath<Object> id = Expressions.path(Object.class, entity, idName);
+		
+		Set<Object> affectedIds = new HashSet<>();
+		List<Object> ids = new ArrayList<>(managed.keySet());
+		for(int i = 0; i < ids.size(); i += IN_CHUNK_SIZE) {
+			affectedIds.addAll(queryFactory
+					.select(id)
+					.from(entity)
+					.where(where, id.in(ids.subList(i, Math.min(i + IN_CHUNK_SIZE, ids.size()))))
+					.fetch());
+		}
+		
+		List<Object> affected = new ArrayList<>(affectedIds.size());
+		for(Object affectedId : affectedIds) {
+			affected.add(managed.get(affectedId));
+		}
+		return affected;
+	}
+	
+}
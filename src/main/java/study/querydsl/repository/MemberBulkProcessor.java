@@ -0,0 +1,126 @@
+package study.querydsl.repository;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.querydsl.core.types.Predicate;
+import com.querydsl.jpa.hibernate.HibernateQuery;
+
+import study.querydsl.entity.Member;
+import study.querydsl.monitor.RepositoryMetrics;
+
+// 마이그레이션 / 백필 같은 대량 작업용 member 처리기 (StatelessSession)
+// 영속성 컨텍스트(1차 캐시), 변경 감지, cascade 가 없으므로 flush / clear 를 직접 반복할 필요가 없고
+// 처리한 member 는 바로 GC 대상이 된다 (Team.members 컬렉션도 채워지지 않는다)
+//
+// 주의
+// - 호출한 쪽 트랜잭션과 별개로 자체 커넥션 / 트랜잭션에서 실행하고 끝나면 커밋한다 (예외가 나면 롤백)
+// - 조회한 member 의 team 은 fetch join 으로 같이 가져온다 (StatelessSession 은 지연 로딩을 못 한다)
+// - team.members 는 초기화되지 않은 컬렉션이다 (접근하면 LazyInitializationException)
+// - update 는 변경 감지 없이 모든 컬럼을 update 한다
+// - hibernate 이벤트가 없으므로 update / insert 후 같은 트랜잭션에서 team_statistics 를 다시 계산한다
+@Component
+public class MemberBulkProcessor {
+	
+	private final SessionFactory sessionFactory;
+	private final int fetchSize;
+	private final RepositoryMetrics metrics;
+	
+	public MemberBulkProcessor(EntityManagerFactory emf, @Value("${member.batch.fetch-size:1000}") int fetchSize,
+			RepositoryMetrics metrics) {
+		this.sessionFactory = emf.unwrap(SessionFactory.class);
+		this.fetchSize = fetchSize;
+		this.metrics = metrics;
+	}
+	
+	// ex) forEach(team.name.eq("teamA"), m -> writer.write(m))
+	// where 에는 member, team(QTeam.team) 조건을 쓸 수 있다 (null 이면 전체)
+	// 처리한 row 수 반환
+	public long forEach(Predicate where, Consumer<Member> action) {
+		return metrics.record("statelessForEach", Member.class.getSimpleName(),
+				() -> inTransaction(session -> scroll(session, where, action)), Long::longValue);
+	}
+	
+	// ex) update(member.age.lt(20), m -> m.setUsername(m.getUsername() + "_junior"))
+	// modifier 로 바꾼 member 를 바로 update 한다
+	// 조건 컬럼을 바꾸더라도 이미 연 커서 기준으로 한 번씩만 처리한다
+	public long update(Predicate where, Consumer<Member> modifier) {
+		return metrics.record("statelessUpdate", Member.class.getSimpleName(),
+				() -> inTransaction(session -> {
+					long count = scroll(session, where, each -> {
+						modifier.accept(each);
+						session.update(each);
+					});
+					TeamStatisticsListener.rebuild(session);
+					return count;
+				}), Long::longValue);
+	}
+	
+	// 대량 insert, team 은 이미 저장된 team 이어야 한다 (cascade 없음)
+	// new Member(username, age, team) 은 team.members 에 member 를 추가하므로
+	// 같은 team 객체로 많이 만들면 그 컬렉션이 계속 커진다 -> 대량 insert 에서는 team 을 setTeam 으로 지정
+	public long insert(Iterable<Member> members) {
+		return metrics.record("statelessInsert", Member.class.getSimpleName(),
+				() -> inTransaction(session -> {
+					long count = 0;
+					for(Member each : members) {
+						session.insert(each);
+						count++;
+					}
+					TeamStatisticsListener.rebuild(session);
+					return count;
+				}), Long::longValue);
+	}
+	
+	private long scroll(StatelessSession session, Predicate where, Consumer<Member> action) {
+		ScrollableResults results = new HibernateQuery<Member>(session)
+				.select(member)
+				.from(member)
+				.leftJoin(member.team, team).fetchJoin()
+				.where(where)
+				.orderBy(member.id.asc())
+				.setFetchSize(fetchSize)
+				.scroll(ScrollMode.FORWARD_ONLY);
+		try {
+			long count = 0;
+			while(results.next()) {
+				action.accept((Member) results.get(0));
+				count++;
+			}
+			return count;
+		} finally {
+			results.close();
+		}
+	}
+	
+	private long inTransaction(Function<StatelessSession, Long> work) {
+		StatelessSession session = sessionFactory.openStatelessSession();
+		Transaction tx = session.beginTransaction();
+		try {
+			long result = work.apply(session);
+			tx.commit();
+			return result;
+		} catch(RuntimeException e) {
+			if(tx.isActive()) {
+				tx.rollback();
+			}
+			throw e;
+		} finally {
+			session.close();
+		}
+	}
+	
+}
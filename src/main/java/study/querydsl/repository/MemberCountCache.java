@@ -0,0 +1,66 @@
+package study.querydsl.repository;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import study.querydsl.dto.MemberSearchCondition;
+
+// 검색 조건별 전체 개수(count 쿼리 결과)를 ttl 동안 재사용
+// 목록 화면에서 페이지만 넘길 때는 조건이 그대로라 count 를 매번 다시 구할 필요가 없다
+// ttl 이 0 이면 캐시하지 않는다 (기본값)
+@Component
+public class MemberCountCache {
+	
+	private final Map<MemberSearchKey, CachedCount> counts = new ConcurrentHashMap<>();
+	private final Duration ttl;
+	private final int maxSize;
+	
+	public MemberCountCache(@Value("${member.search.count-cache.ttl:0s}") Duration ttl,
+			@Value("${member.search.count-cache.max-size:1000}") int maxSize) {
+		this.ttl = ttl;
+		this.maxSize = maxSize;
+	}
+	
+	public long get(MemberSearchCondition condition, LongSupplier countQuery) {
+		if(ttl.isZero() || ttl.isNegative()) {
+			return countQuery.getAsLong();
+		}
+		
+		long now = System.nanoTime();
+		MemberSearchKey key = MemberSearchKey.of(condition); // 조건 객체는 변경 가능하므로 복사해서 key 로 사용
+		CachedCount cached = counts.get(key);
+		if(cached != null && cached.expiresAt - now > 0) {
+			return cached.total;
+		}
+		
+		long total = countQuery.getAsLong();
+		if(counts.size() >= maxSize) {
+			counts.values().removeIf(each -> each.expiresAt - now <= 0);
+			if(counts.size() >= maxSize) {
+				counts.clear();
+			}
+		}
+		counts.put(key, new CachedCount(total, now + ttl.toNanos()));
+		return total;
+	}
+	
+	public void clear() {
+		counts.clear();
+	}
+	
+	private static class CachedCount {
+		private final long total;
+		private final long expiresAt;
+		
+		CachedCount(long total, long expiresAt) {
+			this.total = total;
+			this.expiresAt = expiresAt;
+		}
+	}
+	
+}
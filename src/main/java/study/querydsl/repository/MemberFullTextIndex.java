@@ -0,0 +1,102 @@
+package study.querydsl.repository;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import study.querydsl.dto.MemberSearchCondition;
+
+// member.username 전문 검색 인덱스 (H2 내장 full-text, org.h2.fulltext.FullText)
+// 단어(공백 / 구두점으로 나뉜 토큰) 단위 색인, 대소문자 무시
+// -> usernameText 는 단어가 일치하는 member 를 찾는다 (단어 일부만 일치하는 것은 찾지 않는다)
+// -> 여러 단어를 주면 모두 포함한 member
+// MEMBER 테이블 트리거가 insert / update / delete (벌크 연산 포함) 때 같은 트랜잭션에서 색인을 갱신한다
+// H2 가 아니거나 member.search.full-text.enabled=false 면 색인을 만들지 않고 usernameText 조건을 쓸 수 없다 (validate)
+//
+// 찾은 id 가 maxResults 개 이하면 member.id in (...) 조건으로 넘긴다 (findMemberIds)
+// 더 많으면 id 를 메모리로 가져오지 않고 member 쿼리 안에서 FT_SEARCH_DATA 서브쿼리로 조회한다 (CustomFunctionContributor.MEMBER_TEXT_MATCH)
+// -> 서브쿼리는 H2 가 후보 row 마다 전문 검색을 다시 실행해서 느리므로 일치하는 member 가 많은 흔한 단어에만 사용
+// 결과 개수 제한이 없는 목록 조회(search)만 maxResults 개보다 많으면 거부한다 (memberIds)
+@Component
+public class MemberFullTextIndex {
+	
+	private static final String SEARCH_SQL =
+			"select ft.KEYS[1] from FT_SEARCH_DATA(:text, :limit, 0) ft where ft.\"TABLE\" = 'MEMBER'";
+	
+	private final EntityManager em;
+	private final boolean enabled;
+	private final int maxResults;
+	
+	// EntityManagerFactory 를 받아서 hibernate 가 테이블을 만든 뒤에 색인을 생성한다
+	public MemberFullTextIndex(EntityManagerFactory emf, EntityManager em, DataSource dataSource,
+			@Value("${member.search.full-text.enabled:true}") boolean enabled,
+			@Value("${member.search.full-text.max-results:1000}") int maxResults) throws SQLException {
+		this.em = em;
+		this.maxResults = maxResults;
+		this.enabled = enabled && isH2(dataSource);
+		if(this.enabled) {
+			createIndex(new JdbcTemplate(dataSource));
+		}
+	}
+	
+	public boolean isEnabled() {
+		return enabled;
+	}
+	
+	// 검색 조건을 쓸 수 있는지 쿼리를 만들기 전에 확인
+	public void validate(MemberSearchCondition condition) {
+		if(!enabled && StringUtils.hasText(condition.getUsernameText())) {
+			throw new IllegalArgumentException("usernameText 조건은 H2 전문 검색 인덱스가 있을 때만 사용할 수 있습니다"
+					+ " (member.search.full-text.enabled=true)");
+		}
+	}
+	
+	// 단어가 모두 일치하는 member id, maxResults 개보다 많으면 empty
+	// native query 라 실행 전에 영속성 컨텍스트를 flush 하고 현재 트랜잭션 커넥션에서 조회한다
+	@SuppressWarnings("unchecked")
+	public Optional<List<Long>> findMemberIds(String text) {
+		List<Object> keys = em.createNativeQuery(SEARCH_SQL)
+				.setParameter("text", text)
+				.setParameter("limit", maxResults + 1)
+				.getResultList();
+		if(keys.size() > maxResults) {
+			return Optional.empty();
+		}
+		return Optional.of(keys.stream()
+				.map(key -> Long.valueOf(key.toString()))
+				.collect(Collectors.toList()));
+	}
+	
+	// 결과 개수 제한이 없는 목록 조회용 : maxResults 개보다 많이 일치하면 결과를 전부 만들지 않고 거부
+	public List<Long> memberIds(String text) {
+		return findMemberIds(text).orElseThrow(() -> new IllegalArgumentException("usernameText '" + text
+				+ "' 와 일치하는 member 가 " + maxResults + " 명보다 많습니다. 검색어를 더 구체적으로 입력하거나"
+				+ " 페이징 조회를 사용하세요 (member.search.full-text.max-results)"));
+	}
+	
+	// 이미 색인이 있으면 (파일 DB 재시작) 지우고 현재 데이터로 다시 만든다
+	private static void createIndex(JdbcTemplate jdbc) {
+		jdbc.execute("create alias if not exists FT_INIT for \"org.h2.fulltext.FullText.init\"");
+		jdbc.execute("call FT_INIT()");
+		jdbc.execute("call FT_DROP_INDEX('PUBLIC', 'MEMBER')");
+		jdbc.execute("call FT_CREATE_INDEX('PUBLIC', 'MEMBER', 'USERNAME')");
+	}
+	
+	private static boolean isH2(DataSource dataSource) throws SQLException {
+		try(Connection connection = dataSource.getConnection()) {
+			return "H2".equals(connection.getMetaData().getDatabaseProductName());
+		}
+	}
+	
+}
@@ -1,24 +1,18 @@
 package study.querydsl.repository;
 
-import static study.querydsl.entity.QMember.member;
-import static study.querydsl.entity.QTeam.team;
-
 import java.util.List;
 import java.util.Optional;
 
 import javax.persistence.EntityManager;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
-import org.springframework.util.StringUtils;
-
-import com.querydsl.core.BooleanBuilder;
-import com.querydsl.core.types.dsl.BooleanExpression;
-import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.springframework.transaction.annotation.Transactional;
 
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
-import study.querydsl.dto.QMemberTeamDto;
 import study.querydsl.entity.Member;
+import study.querydsl.monitor.RepositoryMetrics;
 
 @Repository
 //@RequiredArgsConstructor
@@ -26,93 +20,58 @@ public class MemberJpaRepository {
 	
 	
 	private final EntityManager em;
-	private final JPAQueryFactory queryFactory;
+	private final MemberSearchQueryTemplates searchQueryTemplates;
+	private final int flushSize;
+	private final RepositoryMetrics metrics;
 	
-	public MemberJpaRepository(EntityManager em, JPAQueryFactory queryFactory) {
+	public MemberJpaRepository(EntityManager em, MemberSearchQueryTemplates searchQueryTemplates,
+			@Value("${member.batch.flush-size:1000}") int flushSize, RepositoryMetrics metrics) {
 		this.em = em;;
-		this.queryFactory = queryFactory;
-		//this.queryFactory = new JPAQueryFactory(em);
+		this.searchQueryTemplates = searchQueryTemplates;
+		this.flushSize = flushSize;
+		this.metrics = metrics;
 	}
 	
 	public void save(Member member) {
 		em.persist(member);
 	}
 	
+	// 대량 저장
+	// insert 는 hibernate.jdbc.batch_size 만큼 모아서 JDBC batch 로 전송되고
+	// flushSize 마다 flush + clear 해서 영속성 컨텍스트가 계속 커지지 않게 한다
+	// clear 이후 저장한 member 와 team 은 준영속 상태가 된다
+	@Transactional
+	public void saveAll(Iterable<Member> members) {
+		int count = 0;
+		for(Member member : members) {
+			em.persist(member);
+			if(++count % flushSize == 0) {
+				em.flush();
+				em.clear();
+			}
+		}
+		em.flush();
+		em.clear();
+	}
+	
 	public Optional<Member> findById(Long id){
 		Member findMember = em.find(Member.class, id);
 		return Optional.ofNullable(findMember);
 	}
 	
 	public List<Member> findByUsername(String username){
-		return em.createQuery("select m from Member m where m.username = :username", Member.class)
-				.setParameter("username", username)
-				.getResultList();
-	}
-	
-	public List<MemberTeamDto> searchByBuilder(MemberSearchCondition condition){
-		
-		BooleanBuilder builder = new BooleanBuilder();
-		if(StringUtils.hasText(condition.getUsername())) { // not null + not "" 
-			builder.and(member.username.eq(condition.getUsername()));
-		}
-		if(StringUtils.hasText(condition.getTeamName())) {
-			builder.and(team.name.eq(condition.getTeamName()));
-		}
-		if(condition.getAgeGoe() != null) {
-			builder.and(member.age.goe(condition.getAgeGoe()));
-		}
-		if(condition.getAgeLoe() != null) {
-			builder.and(member.age.loe(condition.getAgeLoe()));
-		}
-		
-		return queryFactory
-				.select(new QMemberTeamDto(
-							member.id.as("memberId"), // MemberTeamDto 에서 받을 필드명을 as로
-							member.username,
-							member.age,
-							team.id.as("teamId"),
-							team.name.as("teamName")
-						))
-				.from(member)
-				.leftJoin(member.team, team)
-				//.on(builder) -> 안됨
-				.where(builder)
-				.fetch();
-		
-		// where 절에 조건이 안들어가면 전체를 조회하게 된다
-		// DB에 raw 수가 많다면 paging을 해야 한다
+		return metrics.record("findByUsername", "username",
+				() -> em.createQuery("select m from Member m where m.username = :username", Member.class)
+						.setParameter("username", username)
+						.getResultList(),
+				List::size);
 	}
 	
+	// 조건 모양별로 미리 만들어둔 JPQL 로 조회 (MemberSearchQueryTemplates, 파라미터만 바인딩)
+	// where 절에 조건이 안들어가면 전체를 조회하게 된다
+	// DB에 raw 수가 많다면 paging을 해야 한다
+	// usernameText 가 member.search.full-text.max-results 명보다 많이 일치하면 거부 (IllegalArgumentException)
 	public List<MemberTeamDto> search(MemberSearchCondition condition){
-		return queryFactory
-				.select(new QMemberTeamDto(
-							member.id.as("memberId"), // MemberTeamDto 에서 받을 필드명을 as로
-							member.username,
-							member.age,
-							team.id.as("teamId"),
-							team.name.as("teamName")
-						))
-				.from(member)
-				.leftJoin(member.team, team)
-				.where(
-						usernameEq(condition.getUsername()),
-						teamNameEq(condition.getTeamName()),
-						ageGoe(condition.getAgeGoe()),
-						ageLoe(condition.getAgeLoe())
-						)
-				.fetch();
-	}
-	
-	private BooleanExpression usernameEq(String username) {
-		return StringUtils.hasText(username) ? member.username.eq(username) : null;
-	}
-	private BooleanExpression teamNameEq(String teamName) {
-		return StringUtils.hasText(teamName) ? team.name.eq(teamName) : null;
-	}
-	private BooleanExpression ageGoe(Integer ageGoe) {
-		return ageGoe != null ? member.age.goe(ageGoe) : null;
-	}
-	private BooleanExpression ageLoe(Integer ageLoe) {
-		return ageLoe != null ? member.age.loe(ageLoe) : null;
+		return searchQueryTemplates.search(em, condition);
 	}
 }
@@ -1,20 +1,47 @@
 package study.querydsl.repository;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
 
 public interface MemberRepositoryCustom {
 	
 	List<MemberTeamDto> search(MemberSearchCondition condition);
 	
+	// 읽기 전용으로 조회한 엔티티 (스냅샷 / dirty checking 없음, 변경해도 반영되지 않는다)
+	List<Member> searchMembers(MemberSearchCondition condition);
+	
+	// 결과를 한 번에 메모리에 올리지 않고 커서로 조금씩 읽는다 (사용 후 close 필수)
+	Stream<MemberTeamDto> stream(MemberSearchCondition condition);
+	
+	// member.id 범위를 나눠서 여러 커넥션으로 동시에 조회 (ordered 면 member.id 순으로 합친다)
+	List<MemberTeamDto> searchParallel(MemberSearchCondition condition, boolean ordered);
+	
 	Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable);
 	
 	Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable);
 
+	// content / count 쿼리를 각자 읽기 전용 트랜잭션으로 동시에 실행
+	CompletableFuture<Page<MemberTeamDto>> searchPageComplexAsync(MemberSearchCondition condition, Pageable pageable);
+	
+	// content + 전체 개수를 쿼리 한 번으로 조회 (count(*) over())
+	Page<MemberTeamDto> searchPageWindow(MemberSearchCondition condition, Pageable pageable);
+	
+	// id 만 먼저 페이징한 뒤 해당 id 들로 team join + dto 조회 (deferred join)
+	Page<MemberTeamDto> searchPageDeferredJoin(MemberSearchCondition condition, Pageable pageable);
+	
+	CompletableFuture<Page<MemberTeamDto>> searchPageDeferredJoinAsync(MemberSearchCondition condition, Pageable pageable);
+	
+	// offset 대신 마지막으로 조회한 memberId(cursor) 이후부터 조회 (cursor == null 이면 처음부터)
+	Slice<MemberTeamDto> searchSlice(MemberSearchCondition condition, Long cursor, int size);
+
 	// page로 반환하면, 페이지 개수/ 총 개수/ first인지 last인지/ 비어있는지 등 담겨서 나옴
 }
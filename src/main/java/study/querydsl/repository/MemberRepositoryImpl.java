@@ -3,24 +3,54 @@ package study.querydsl.repository;
 import static study.querydsl.entity.QMember.member;
 import static study.querydsl.entity.QTeam.team;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
 
+import org.hibernate.jpa.QueryHints;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.jpa.repository.support.QuerydslRepositorySupport;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.StringUtils;
 
 import com.querydsl.core.QueryResults;
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Predicate;
 import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.NumberExpression;
+import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 
+import study.querydsl.config.CustomFunctionContributor;
+import study.querydsl.config.SearchExecutorConfig;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.dto.QMemberTeamDto;
 import study.querydsl.entity.Member;
+import study.querydsl.monitor.RepositoryMetrics;
 
 public class MemberRepositoryImpl implements MemberRepositoryCustom{
 	// extends QuerydslRepositorySupport
@@ -29,14 +59,77 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom{
 //		super(Member.class);
 //	}
 	
+	private final EntityManager em;
 	private final JPAQueryFactory query;
+	private final JPAQueryFactory readOnlyQuery;
+	
+	// DB가 윈도우 함수(count(*) over())를 지원하지 않으면 false 로 설정
+	private final boolean windowCount;
+	
+	private final MemberCountCache countCache;
+	
+	private final MemberSearchCache searchCache;
+	
+	// stream 조회 시 JDBC 드라이버가 한 번에 가져오는 row 수
+	private final int streamFetchSize;
+	
+	// searchParallel : 파티션마다 EntityManager(커넥션)를 따로 열어서 executor 에서 실행
+	private final EntityManagerFactory emf;
+	private final Executor searchExecutor;
+	private final int partitions;
+	
+	// searchPage*Async : content / count 를 각자 읽기 전용 트랜잭션으로 pageExecutor 에서 동시에 실행
+	private final Executor pageExecutor;
+	private final TransactionTemplate readOnlyTransaction;
+	
+	private final RepositoryMetrics metrics;
 	
-	public MemberRepositoryImpl(EntityManager em) {
+	private final MemberFullTextIndex fullTextIndex;
+	
+	// search : 조건 모양별로 미리 만들어둔 JPQL 에 파라미터만 바인딩
+	private final MemberSearchQueryTemplates searchQueryTemplates;
+	
+	public MemberRepositoryImpl(EntityManager em,
+			@Value("${member.search.window-count:true}") boolean windowCount,
+			MemberCountCache countCache,
+			MemberSearchCache searchCache,
+			@Value("${member.search.stream-fetch-size:1000}") int streamFetchSize,
+			EntityManagerFactory emf,
+			@Qualifier(SearchExecutorConfig.MEMBER_SEARCH_EXECUTOR) Executor searchExecutor,
+			@Value("${member.search.parallel.partitions:4}") int partitions,
+			@Qualifier(SearchExecutorConfig.MEMBER_PAGE_EXECUTOR) Executor pageExecutor,
+			PlatformTransactionManager transactionManager,
+			RepositoryMetrics metrics,
+			MemberFullTextIndex fullTextIndex,
+			MemberSearchQueryTemplates searchQueryTemplates) {
+		if(partitions < 1) {
+			throw new IllegalArgumentException("member.search.parallel.partitions 는 1 이상이어야 합니다 : " + partitions);
+		}
+		this.em = em;
 		this.query = new JPAQueryFactory(em);
+		this.readOnlyQuery = new ReadOnlyQueryFactory(em);
+		this.windowCount = windowCount;
+		this.countCache = countCache;
+		this.searchCache = searchCache;
+		this.streamFetchSize = streamFetchSize;
+		this.emf = emf;
+		this.searchExecutor = searchExecutor;
+		this.partitions = partitions;
+		this.pageExecutor = pageExecutor;
+		this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+		this.readOnlyTransaction.setReadOnly(true);
+		// CallerRunsPolicy 로 호출한 스레드에서 실행되더라도 호출한 쪽 트랜잭션에 참여하지 않게
+		this.readOnlyTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+		this.metrics = metrics;
+		this.fullTextIndex = fullTextIndex;
+		this.searchQueryTemplates = searchQueryTemplates;
 	}
 	
+	// 결과 개수 제한이 없는 목록이라 usernameText 가 member.search.full-text.max-results 명보다 많이 일치하면 거부한다
+	// (MemberSearchQueryTemplates, 페이징 / slice / stream 조회는 거부하지 않는다)
 	@Override
 	public List<MemberTeamDto> search(MemberSearchCondition condition){
+		fullTextIndex.validate(condition);
 		
 		// QuerydslRepositorySupport 의 지원을 받으면 아래 형식으로 사용
 		// sort 가 정상 작동하지 않는다는 치명적인 단점때문에 사용 x
@@ -57,28 +150,128 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom{
 //			))
 //		.fetch();
 		
-		return query
-				.select(new QMemberTeamDto(
-							member.id.as("memberId"), // MemberTeamDto 에서 받을 필드명을 as로
-							member.username,
-							member.age,
-							team.id.as("teamId"),
-							team.name.as("teamName")
-						))
-				.from(member)
-				.leftJoin(member.team, team)
-				.where(
-						usernameEq(condition.getUsername()),
-						teamNameEq(condition.getTeamName()),
-						ageGoe(condition.getAgeGoe()),
-						ageLoe(condition.getAgeLoe())
-						)
+		return metrics.record("search", RepositoryMetrics.shape(condition),
+				() -> searchCache.get("search", condition, null, () -> Collections.unmodifiableList(searchQueryTemplates.search(em, condition))),
+				List::size);
+	}
+	
+	// 목록 화면용 엔티티 조회 (team fetch join)
+	// 읽기 전용 트랜잭션 + 읽기 전용 쿼리 -> 스냅샷 없이 영속성 컨텍스트에 올라가고 flush / dirty checking 도 하지 않는다
+	// 이미 쓰기 트랜잭션 안에서 호출되면 그 트랜잭션에 참여하지만 쿼리 힌트로 조회한 member / team 은 읽기 전용
+	@Override
+	@Transactional(readOnly = true)
+	public List<Member> searchMembers(MemberSearchCondition condition) {
+		fullTextIndex.validate(condition);
+		return readOnlyQuery
+				.selectFrom(member)
+				.leftJoin(member.team, team).fetchJoin()
+				.where(where(condition))
+				.orderBy(member.id.asc())
 				.fetch();
 	}
 	
+	// 전체를 List 로 만들지 않고 forward-only 커서로 fetchSize 만큼씩 읽어온다
+	// dto 조회라 영속성 컨텍스트에 엔티티가 쌓이지 않으므로 메모리 사용량이 일정하다
+	// 커서(커넥션)를 물고 있으므로 트랜잭션 안에서 사용하고 반드시 close 해야 한다 (try-with-resources)
+	@Override
+	public Stream<MemberTeamDto> stream(MemberSearchCondition condition) {
+		fullTextIndex.validate(condition);
+		return contentQuery(condition, where(condition))
+				.setHint(QueryHints.HINT_FETCH_SIZE, streamFetchSize)
+				.setHint(QueryHints.HINT_READONLY, true)
+				.stream();
+	}
+	
+	// member.id 범위를 partitions 개로 나눠서 각각 다른 커넥션으로 동시에 조회한 뒤 합친다
+	// 조건이 넓어서(나이 범위, 조건 없음) 결과가 많은 리포트용 조회를 DB/애플리케이션의 여러 코어로 나눠 처리
+	// 파티션은 각자 커넥션을 쓰므로 호출한 쪽 트랜잭션에서 아직 커밋하지 않은 변경은 보이지 않는다
+	@Override
+	public List<MemberTeamDto> searchParallel(MemberSearchCondition condition, boolean ordered) {
+		fullTextIndex.validate(condition);
+		// 조건에 맞는 member 의 id 범위만 나눈다 -> 조건이 좁으면 결과가 없는 파티션을 만들지 않는다
+		Predicate[] where = where(condition);
+		JPAQuery<Tuple> rangeQuery = query
+				.select(member.id.min(), member.id.max())
+				.from(member);
+		joinTeam(rangeQuery, condition.getTeamName());
+		Tuple range = rangeQuery
+				.where(where)
+				.fetchOne();
+		Long minId = range.get(member.id.min());
+		Long maxId = range.get(member.id.max());
+		if(minId == null) {
+			return new ArrayList<>();
+		}
+		
+		long width = Math.max(1, (maxId - minId + partitions) / partitions); // 올림
+		List<CompletableFuture<List<MemberTeamDto>>> futures = new ArrayList<>();
+		for(long start = minId; start <= maxId; start += width) {
+			long from = start;
+			long to = Math.min(maxId, start + width - 1);
+			futures.add(CompletableFuture.supplyAsync(() -> searchPartition(condition, where, from, to, ordered), searchExecutor));
+		}
+		
+		// 파티션 순서(id 범위 순)대로 합치므로 ordered 면 전체가 member.id 순
+		List<MemberTeamDto> result = new ArrayList<>();
+		try {
+			for(CompletableFuture<List<MemberTeamDto>> each : futures) {
+				result.addAll(each.join());
+			}
+		} catch(CompletionException e) {
+			futures.forEach(each -> each.cancel(true));
+			throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+		}
+		return result;
+	}
+	
+	private List<MemberTeamDto> searchPartition(MemberSearchCondition condition, Predicate[] where, long fromId, long toId, boolean ordered) {
+		EntityManager partitionEm = emf.createEntityManager();
+		try {
+			JPAQuery<MemberTeamDto> partitionQuery = contentQuery(new JPAQueryFactory(partitionEm), condition, where)
+					.where(member.id.between(fromId, toId))
+					.setHint(QueryHints.HINT_READONLY, true);
+			if(ordered) {
+				partitionQuery.orderBy(member.id.asc());
+			}
+			return partitionQuery.fetch();
+		} finally {
+			partitionEm.close();
+		}
+	}
+	
+	// 검색 조건 -> where 조건 (호출마다 한 번 만들어서 content / count 쿼리가 같이 쓴다)
+	// usernameText 는 여기서 전문 검색 인덱스를 조회하므로 쿼리마다 다시 만들지 않는다
+	private Predicate[] where(MemberSearchCondition condition) {
+		return new Predicate[] {
+				usernameEq(condition.getUsername()),
+				usernamePrefix(condition.getUsernamePrefix()),
+				usernameText(condition.getUsernameText()),
+				teamNameEq(condition.getTeamName()),
+				ageGoe(condition.getAgeGoe()),
+				ageLoe(condition.getAgeLoe())
+		};
+	}
+	
 	private BooleanExpression usernameEq(String username) {
 		return StringUtils.hasText(username) ? member.username.eq(username) : null;
 	}
+	private BooleanExpression usernamePrefix(String prefix) {
+		return StringUtils.hasText(prefix) ? PrefixRange.of(member.username, prefix) : null;
+	}
+	// 전문 검색 인덱스에서 id 를 먼저 찾아서 in 조건으로 (다른 조건 / join / 페이징과 그대로 조합)
+	// in 절 파라미터 개수는 2의 거듭제곱으로 맞춘다 (쿼리 플랜 재사용)
+	// member.search.full-text.max-results 개보다 많이 일치하면 id 를 가져오지 않고 쿼리 안에서 전문 검색 (서브쿼리)
+	private BooleanExpression usernameText(String text) {
+		if(!StringUtils.hasText(text)) {
+			return null;
+		}
+		Optional<List<Long>> memberIds = fullTextIndex.findMemberIds(text);
+		if(memberIds.isPresent()) {
+			return member.id.in(memberIds.get());
+		}
+		return Expressions.numberTemplate(Integer.class, CustomFunctionContributor.MEMBER_TEXT_MATCH + "({0}, {1})", member.id, text)
+				.eq(1);
+	}
 	private BooleanExpression teamNameEq(String teamName) {
 		return StringUtils.hasText(teamName) ? team.name.eq(teamName) : null;
 	}
@@ -92,22 +285,15 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom{
 	// 얘는 이제 못씀
 	@Override
 	public Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable) {
-		QueryResults<MemberTeamDto> result = query
-				.select(new QMemberTeamDto(
-							member.id.as("memberId"), // MemberTeamDto 에서 받을 필드명을 as로
-							member.username,
-							member.age,
-							team.id.as("teamId"),
-							team.name.as("teamName")
-						))
-				.from(member)
-				.leftJoin(member.team, team)
-				.where(
-						usernameEq(condition.getUsername()),
-						teamNameEq(condition.getTeamName()),
-						ageGoe(condition.getAgeGoe()),
-						ageLoe(condition.getAgeLoe())
-						)
+		fullTextIndex.validate(condition);
+		// fetchResults 는 content / count 를 한 번에 실행하므로 count 시간을 따로 기록할 수 없다
+		return metrics.record("searchPageSimple", RepositoryMetrics.shape(condition),
+				() -> searchCache.get("searchPageSimple", condition, pageable, () -> searchPageSimpleQuery(condition, pageable)),
+				Page::getNumberOfElements);
+	}
+	
+	private Page<MemberTeamDto> searchPageSimpleQuery(MemberSearchCondition condition, Pageable pageable) {
+		QueryResults<MemberTeamDto> result = contentQuery(condition, where(condition))
 				.offset(pageable.getOffset())
 				.limit(pageable.getPageSize())
 				.fetchResults(); // count 쿼리까지 날림
@@ -120,11 +306,170 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom{
 	
 	// TODO : querydsl 에서 pageable이용
 	// fetchResults 사용하지 않는 쿼리
+	// count 쿼리는 필요할 때만 실행 -> PageableExecutionUtils 가 아래 경우에는 count 를 생략한다
+	// 1. 첫 페이지인데 content 크기가 page size 보다 작을 때
+	// 2. 마지막 페이지일 때 (offset + content 크기 = 전체 개수)
 	@Override
 	public Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable) {
-		List<MemberTeamDto> result = query
+		fullTextIndex.validate(condition);
+		return metrics.record("searchPageComplex", RepositoryMetrics.shape(condition),
+				() -> searchCache.get("searchPageComplex", condition, pageable, () -> searchPageComplexQuery(condition, pageable)),
+				Page::getNumberOfElements);
+	}
+	
+	private Page<MemberTeamDto> searchPageComplexQuery(MemberSearchCondition condition, Pageable pageable) {
+		Predicate[] where = where(condition);
+		List<MemberTeamDto> content = contentQuery(condition, where)
+				.offset(pageable.getOffset())
+				.limit(pageable.getPageSize())
+				.fetch();
+		
+		JPAQuery<Long> countQuery = countQuery(condition, where);
+		
+		return PageableExecutionUtils.getPage(content, pageable,
+				() -> countCache.get(condition,
+						() -> metrics.recordCount("searchPageComplex", RepositoryMetrics.shape(condition), countQuery::fetchOne)));
+	}
+	// + sort도 querydsl이 지원해주지만 조건이 조금만 복잡해져도 사용하기 어려워지기 때문에
+	// 루트 엔티티를 벗어나서 동적 정렬이 필요하다면 파라미터를 직접 받아서 처리하는게 낫다
+	
+	// searchPageComplex 와 같은 결과를 content / count 쿼리를 동시에 실행해서 조회
+	// 응답 시간 : content + count -> max(content, count)
+	// 대신 count 가 필요 없는 경우(첫 페이지가 다 안 찼을 때, 마지막 페이지)에도 count 를 실행한다
+	@Override
+	public CompletableFuture<Page<MemberTeamDto>> searchPageComplexAsync(MemberSearchCondition condition, Pageable pageable) {
+		fullTextIndex.validate(condition);
+		Predicate[] where = where(condition);
+		return pageAsync(condition, where, pageable, () -> contentQuery(condition, where)
+				.offset(pageable.getOffset())
+				.limit(pageable.getPageSize())
+				.fetch());
+	}
+	
+	@Override
+	public CompletableFuture<Page<MemberTeamDto>> searchPageDeferredJoinAsync(MemberSearchCondition condition, Pageable pageable) {
+		fullTextIndex.validate(condition);
+		Predicate[] where = where(condition);
+		return pageAsync(condition, where, pageable, () -> deferredJoinContent(condition, where, pageable));
+	}
+	
+	private CompletableFuture<Page<MemberTeamDto>> pageAsync(MemberSearchCondition condition, Predicate[] where, Pageable pageable,
+			Supplier<List<MemberTeamDto>> content) {
+		CompletableFuture<List<MemberTeamDto>> contentFuture = CompletableFuture.supplyAsync(
+				() -> readOnlyTransaction.execute(status -> content.get()), pageExecutor);
+		CompletableFuture<Long> countFuture = CompletableFuture.supplyAsync(
+				() -> readOnlyTransaction.execute(status -> countCache.get(condition, () -> countQuery(condition, where).fetchOne())), pageExecutor);
+		
+		return contentFuture.thenCombine(countFuture, (list, total) -> PageableExecutionUtils.getPage(list, pageable, () -> total));
+	}
+	
+	// keyset(seek) 페이징
+	// offset 은 건너뛸 row 를 DB가 전부 읽고 버리기 때문에 뒤 페이지로 갈수록 느려진다
+	// 정렬 키(member.id) 기준으로 cursor 이후부터 읽으면 몇 번째 페이지든 비용이 일정하다
+	@Override
+	public Slice<MemberTeamDto> searchSlice(MemberSearchCondition condition, Long cursor, int size) {
+		fullTextIndex.validate(condition);
+		List<MemberTeamDto> content = contentQuery(condition, where(condition))
+				.where(memberIdGt(cursor))
+				.orderBy(member.id.asc())
+				.limit(size + 1) // 하나 더 가져와서 다음 slice 가 있는지 확인
+				.fetch();
+		
+		boolean hasNext = content.size() > size;
+		if(hasNext) {
+			content.remove(size);
+		}
+		
+		return new SliceImpl<>(content, PageRequest.of(0, size), hasNext);
+	}
+	
+	private BooleanExpression memberIdGt(Long cursor) {
+		return cursor != null ? member.id.gt(cursor) : null;
+	}
+	
+	// content 와 전체 개수를 count(*) over() 로 한 번에 조회 -> DB 왕복 1회
+	// 윈도우 함수는 limit 적용 전에 계산되기 때문에 모든 row 에 전체 개수가 담겨온다
+	@Override
+	public Page<MemberTeamDto> searchPageWindow(MemberSearchCondition condition, Pageable pageable) {
+		fullTextIndex.validate(condition);
+		return searchCache.get("searchPageWindow", condition, pageable, () -> searchPageWindowQuery(condition, pageable));
+	}
+	
+	private Page<MemberTeamDto> searchPageWindowQuery(MemberSearchCondition condition, Pageable pageable) {
+		Predicate[] where = where(condition);
+		if(!windowCount) {
+			List<MemberTeamDto> content = contentQuery(condition, where)
+					.offset(pageable.getOffset())
+					.limit(pageable.getPageSize())
+					.fetch();
+			return PageableExecutionUtils.getPage(content, pageable, countQuery(condition, where)::fetchOne);
+		}
+		
+		QMemberTeamDto memberTeamDto = new QMemberTeamDto(
+				member.id.as("memberId"),
+				member.username,
+				member.age,
+				team.id.as("teamId"),
+				team.name.as("teamName")
+			);
+		NumberExpression<Long> totalOver = Expressions.numberTemplate(Long.class, CustomFunctionContributor.COUNT_OVER + "()");
+		
+		JPAQuery<Tuple> windowQuery = query
+				.select(memberTeamDto, totalOver)
+				.from(member);
+		joinTeam(windowQuery, condition.getTeamName());
+		List<Tuple> rows = windowQuery
+				.where(where)
+				.offset(pageable.getOffset())
+				.limit(pageable.getPageSize())
+				.fetch();
+		
+		List<MemberTeamDto> content = rows.stream()
+				.map(row -> row.get(memberTeamDto))
+				.collect(Collectors.toList());
+		
+		// offset 이 전체 개수를 넘어가서 row 가 하나도 없을 때만 count 쿼리를 따로 날린다
+		return PageableExecutionUtils.getPage(content, pageable,
+				() -> rows.isEmpty() ? countQuery(condition, where).fetchOne() : rows.get(0).get(totalOver));
+	}
+	
+	// deferred join (late row lookup)
+	// 1. 조건 + offset/limit 으로 member.id 만 조회 -> 인덱스만 읽고 정렬/skip 하는 row 폭이 id 하나로 줄어든다
+	// 2. 해당 id 들에 대해서만 team join + dto 조회
+	// keyset 을 쓸 수 없는 임의 페이지 이동에 사용
+	@Override
+	public Page<MemberTeamDto> searchPageDeferredJoin(MemberSearchCondition condition, Pageable pageable) {
+		fullTextIndex.validate(condition);
+		return searchCache.get("searchPageDeferredJoin", condition, pageable, () -> searchPageDeferredJoinQuery(condition, pageable));
+	}
+	
+	private Page<MemberTeamDto> searchPageDeferredJoinQuery(MemberSearchCondition condition, Pageable pageable) {
+		Predicate[] where = where(condition);
+		List<MemberTeamDto> content = deferredJoinContent(condition, where, pageable);
+		
+		JPAQuery<Long> countQuery = countQuery(condition, where);
+		
+		return PageableExecutionUtils.getPage(content, pageable,
+				() -> countCache.get(condition, countQuery::fetchOne));
+	}
+	
+	private List<MemberTeamDto> deferredJoinContent(MemberSearchCondition condition, Predicate[] where, Pageable pageable) {
+		JPAQuery<Long> idQuery = query
+				.select(member.id)
+				.from(member);
+		if(StringUtils.hasText(condition.getTeamName())) { // team 조건이 있을 때만 join
+			idQuery.join(member.team, team);
+		}
+		List<Long> ids = idQuery
+				.where(where)
+				.orderBy(member.id.asc())
+				.offset(pageable.getOffset())
+				.limit(pageable.getPageSize())
+				.fetch();
+		
+		return ids.isEmpty() ? new ArrayList<>() : query
 				.select(new QMemberTeamDto(
-							member.id.as("memberId"), // MemberTeamDto 에서 받을 필드명을 as로
+							member.id.as("memberId"),
 							member.username,
 							member.age,
 							team.id.as("teamId"),
@@ -132,49 +477,46 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom{
 						))
 				.from(member)
 				.leftJoin(member.team, team)
-				.where(
-						usernameEq(condition.getUsername()),
-						teamNameEq(condition.getTeamName()),
-						ageGoe(condition.getAgeGoe()),
-						ageLoe(condition.getAgeLoe())
-						)
-				.offset(pageable.getOffset())
-				.limit(pageable.getPageSize())
-				.fetch(); // count 쿼리까지 날림
-		
-		long total1 = query
-			.select(member)
-			.from(member)
-			.leftJoin(member.team, team)
-			.where(
-					usernameEq(condition.getUsername()),
-					teamNameEq(condition.getTeamName()),
-					ageGoe(condition.getAgeGoe()),
-					ageLoe(condition.getAgeLoe())
-					)
-			.fetchCount(); // 이것도 이제 못씀
-		
-		// 이렇게 count 쿼리를 만드는 방법도 있지만, 
-		List<Long> totalCount = query
-				.select(member.count())
-				.from(member)
-				.leftJoin(member.team, team)
-				.where(
-						usernameEq(condition.getUsername()),
-						teamNameEq(condition.getTeamName()),
-						ageGoe(condition.getAgeGoe()),
-						ageLoe(condition.getAgeLoe())
-						)
+				.where(member.id.in(ids))
+				.orderBy(member.id.asc())
 				.fetch();
-		System.out.println("totalCount : " + totalCount.get(0));
-		
-		// 자바단에서 size() 이용하는게 낫다
-		long total = result.size();
-			
-		//return new PageImpl<>(result, pageable, total);
-		return new PageImpl<>(result);
 	}
-	// + sort도 querydsl이 지원해주지만 조건이 조금만 복잡해져도 사용하기 어려워지기 때문에
-	// 루트 엔티티를 벗어나서 동적 정렬이 필요하다면 파라미터를 직접 받아서 처리하는게 낫다
+	
+	private JPAQuery<MemberTeamDto> contentQuery(MemberSearchCondition condition, Predicate[] where) {
+		return contentQuery(query, condition, where);
+	}
+	
+	private JPAQuery<MemberTeamDto> contentQuery(JPAQueryFactory query, MemberSearchCondition condition, Predicate[] where) {
+		JPAQuery<MemberTeamDto> contentQuery = query
+				.select(new QMemberTeamDto(
+							member.id.as("memberId"), // MemberTeamDto 에서 받을 필드명을 as로
+							member.username,
+							member.age,
+							team.id.as("teamId"),
+							team.name.as("teamName")
+						))
+				.from(member);
+		joinTeam(contentQuery, condition.getTeamName());
+		return contentQuery.where(where);
+	}
+	
+	private JPAQuery<Long> countQuery(MemberSearchCondition condition, Predicate[] where) {
+		JPAQuery<Long> countQuery = query
+				.select(member.count())
+				.from(member);
+		joinTeam(countQuery, condition.getTeamName());
+		return countQuery.where(where);
+	}
+	
+	// teamName 조건이 있으면 team 이 없는 member 는 어차피 걸러지므로 left join 과 결과가 같은 inner join 을 사용
+	// left join 은 항상 member 부터 읽어야 해서 team.name 인덱스를 쓸 수 없다 (member 전체 스캔)
+	// inner join 이면 team.name 인덱스로 team 을 찾고 (team_id, age) 인덱스로 member 를 찾는다
+	private void joinTeam(JPAQuery<?> query, String teamName) {
+		if(StringUtils.hasText(teamName)) {
+			query.join(member.team, team);
+		} else {
+			query.leftJoin(member.team, team);
+		}
+	}
 	
 }
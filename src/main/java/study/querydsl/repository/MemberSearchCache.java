@@ -0,0 +1,101 @@
+package study.querydsl.repository;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import study.querydsl.dto.MemberSearchCondition;
+
+// 검색 결과 캐시 (member.search.result-cache.enabled=true 일 때만 사용)
+// 같은 team/나이 조건 검색이 반복되고 결과는 거의 바뀌지 않기 때문에 DB 조회를 생략한다
+// - key : 메서드 + 정규화한 검색 조건 + pageable
+// - 최대 크기 / ttl 을 넘으면 caffeine(W-TinyLFU) 이 제거
+// - member/team 에 쓰기가 일어나면 전체 무효화 (MemberSearchCacheInvalidator)
+// 쓰기 트랜잭션 안에서는 아직 flush 되지 않은 변경이 있을 수 있으므로 캐시를 거치지 않는다
+// 캐시된 결과는 여러 요청이 공유하므로 수정하면 안 된다
+@Component
+public class MemberSearchCache {
+	
+	private final boolean enabled;
+	private final Cache<CacheKey, Object> cache;
+	
+	public MemberSearchCache(@Value("${member.search.result-cache.enabled:false}") boolean enabled,
+			@Value("${member.search.result-cache.max-size:10000}") long maxSize,
+			@Value("${member.search.result-cache.ttl:60s}") Duration ttl) {
+		this.enabled = enabled;
+		this.cache = Caffeine.newBuilder()
+				.maximumSize(maxSize)
+				.expireAfterWrite(ttl)
+				.build();
+	}
+	
+	@SuppressWarnings("unchecked")
+	public <T> T get(String method, MemberSearchCondition condition, Pageable pageable, Supplier<T> loader) {
+		if(!enabled || !isReadOnlyContext()) {
+			return loader.get();
+		}
+		return (T) cache.get(new CacheKey(method, condition, pageable), key -> loader.get());
+	}
+	
+	// 지금 바로 비우고, 트랜잭션 중이라면 커밋(롤백) 후에 한 번 더 비운다
+	// -> 커밋 전에 다른 트랜잭션이 이전 데이터를 다시 캐시에 올려도 커밋 후에는 제거된다
+	public void invalidateAll() {
+		if(!enabled) {
+			return;
+		}
+		cache.invalidateAll();
+		if(TransactionSynchronizationManager.isSynchronizationActive()
+				&& !TransactionSynchronizationManager.hasResource(this)) {
+			TransactionSynchronizationManager.bindResource(this, Boolean.TRUE);
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCompletion(int status) {
+					TransactionSynchronizationManager.unbindResourceIfPossible(MemberSearchCache.this);
+					cache.invalidateAll();
+				}
+			});
+		}
+	}
+	
+	private static boolean isReadOnlyContext() {
+		return !TransactionSynchronizationManager.isActualTransactionActive()
+				|| TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+	}
+	
+	private static class CacheKey {
+		private final String method;
+		private final MemberSearchKey condition;
+		private final Pageable pageable;
+		
+		CacheKey(String method, MemberSearchCondition condition, Pageable pageable) {
+			this.method = method;
+			this.condition = MemberSearchKey.of(condition);
+			this.pageable = pageable;
+		}
+		
+		@Override
+		public boolean equals(Object o) {
+			if(this == o) return true;
+			if(!(o instanceof CacheKey)) return false;
+			CacheKey other = (CacheKey) o;
+			return method.equals(other.method)
+					&& condition.equals(other.condition)
+					&& Objects.equals(pageable, other.pageable);
+		}
+		
+		@Override
+		public int hashCode() {
+			return Objects.hash(method, condition, pageable);
+		}
+	}
+	
+}
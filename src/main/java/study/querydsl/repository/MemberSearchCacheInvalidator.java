@@ -0,0 +1,35 @@
+package study.querydsl.repository;
+
+import java.util.regex.Pattern;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.stereotype.Component;
+
+// hibernate 가 실행하는 모든 SQL 을 보고 member/team 테이블에 쓰기가 있으면 검색 캐시를 비운다
+// - save / persist : insert into member
+// - changeTeam 등 변경 감지 : update member
+// - querydsl 벌크 연산 (update(member), delete(member)) : update member / delete from member
+// 엔티티 이벤트로는 벌크 연산을 알 수 없어서 SQL 단계에서 확인한다
+@Component
+public class MemberSearchCacheInvalidator implements StatementInspector {
+	
+	// use_sql_comments 설정 시 앞에 붙는 /* ... */ 주석은 건너뛴다
+	private static final Pattern WRITE_SQL = Pattern.compile(
+			"^\\s*(?:/\\*.*?\\*/\\s*)?(?:insert\\s+into|update|delete\\s+from)\\s+(?:member|team)\\b",
+			Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+	
+	private final MemberSearchCache searchCache;
+	
+	public MemberSearchCacheInvalidator(MemberSearchCache searchCache) {
+		this.searchCache = searchCache;
+	}
+	
+	@Override
+	public String inspect(String sql) {
+		if(WRITE_SQL.matcher(sql).find()) {
+			searchCache.invalidateAll();
+		}
+		return sql;
+	}
+	
+}
@@ -0,0 +1,57 @@
+package study.querydsl.repository;
+
+import java.util.Objects;
+
+import org.springframework.util.StringUtils;
+
+import study.querydsl.dto.MemberSearchCondition;
+
+// 검색 조건을 캐시 key 로 쓰기 위한 불변 복사본 (MemberCountCache, MemberSearchCache)
+// MemberSearchCondition 은 변경 가능하므로 그대로 key 로 쓰면 안 된다
+// 검색에서 빈 문자열은 조건 없음과 같으므로 null 로 맞춘다
+// MemberSearchCondition 에 필드를 추가하면 여기에도 추가해야 한다 (MemberSearchKeyTest 가 확인)
+final class MemberSearchKey {
+	
+	private final String username;
+	private final String usernamePrefix;
+	private final String usernameText;
+	private final String teamName;
+	private final Integer ageGoe;
+	private final Integer ageLoe;
+	
+	private MemberSearchKey(MemberSearchCondition condition) {
+		this.username = textOrNull(condition.getUsername());
+		this.usernamePrefix = textOrNull(condition.getUsernamePrefix());
+		this.usernameText = textOrNull(condition.getUsernameText());
+		this.teamName = textOrNull(condition.getTeamName());
+		this.ageGoe = condition.getAgeGoe();
+		this.ageLoe = condition.getAgeLoe();
+	}
+	
+	static MemberSearchKey of(MemberSearchCondition condition) {
+		return new MemberSearchKey(condition);
+	}
+	
+	private static String textOrNull(String value) {
+		return StringUtils.hasText(value) ? value : null;
+	}
+	
+	@Override
+	public boolean equals(Object o) {
+		if(this == o) return true;
+		if(!(o instanceof MemberSearchKey)) return false;
+		MemberSearchKey other = (MemberSearchKey) o;
+		return Objects.equals(username, other.username)
+				&& Objects.equals(usernamePrefix, other.usernamePrefix)
+				&& Objects.equals(usernameText, other.usernameText)
+				&& Objects.equals(teamName, other.teamName)
+				&& Objects.equals(ageGoe, other.ageGoe)
+				&& Objects.equals(ageLoe, other.ageLoe);
+	}
+	
+	@Override
+	public int hashCode() {
+		return Objects.hash(username, usernamePrefix, usernameText, teamName, ageGoe, ageLoe);
+	}
+	
+}
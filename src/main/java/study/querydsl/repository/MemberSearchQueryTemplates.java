@@ -0,0 +1,164 @@
+package study.querydsl.repository;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import com.querydsl.core.BooleanBuilder;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.ParamExpression;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.Param;
+import com.querydsl.jpa.JPQLSerializer;
+import com.querydsl.jpa.impl.JPAProvider;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAUtil;
+
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.QMemberTeamDto;
+
+// 검색 조건의 "모양"(어떤 필드가 들어왔는지)별로 JPQL 을 한 번만 만들어두고 재사용
+// MemberSearchCondition 의 조건은 6개 (+ usernamePrefix 의 upperBound 유무) 라 모양은 최대 128가지뿐이다
+// usernameText 는 전문 검색 인덱스에서 찾은 id 목록을 in 조건 파라미터로 바인딩한다
+// -> 결과 개수 제한이 없는 목록 조회라 member.search.full-text.max-results 명보다 많이 일치하면 거부한다
+//    (페이징 조회는 MemberRepositoryImpl 에서 서브쿼리로 대신 조회)
+// 호출 시에는 querydsl 식 트리 생성 / JPQL 직렬화 없이 파라미터만 바인딩한다
+// JPQL 문자열이 모양별로 항상 같으므로 hibernate 쿼리 플랜 캐시도 그대로 재사용된다
+// MemberJpaRepository.search, MemberRepositoryImpl.search 가 사용 (페이징 조회는 querydsl 로 만든다)
+@Component
+public class MemberSearchQueryTemplates {
+	
+	private static final int USERNAME = 1;
+	private static final int TEAM_NAME = 1 << 1;
+	private static final int AGE_GOE = 1 << 2;
+	private static final int AGE_LOE = 1 << 3;
+	private static final int USERNAME_PREFIX = 1 << 4;
+	private static final int PREFIX_UPPER_BOUND = 1 << 5; // USERNAME_PREFIX 와 같이만
+	private static final int USERNAME_TEXT = 1 << 6;
+	
+	private static final Param<String> usernameParam = new Param<>(String.class, "username");
+	private static final Param<String> teamNameParam = new Param<>(String.class, "teamName");
+	private static final Param<Integer> ageGoeParam = new Param<>(Integer.class, "ageGoe");
+	private static final Param<Integer> ageLoeParam = new Param<>(Integer.class, "ageLoe");
+	private static final Param<String> prefixParam = new Param<>(String.class, "usernamePrefix");
+	private static final Param<String> prefixUpperBoundParam = new Param<>(String.class, "usernamePrefixUpperBound");
+	private static final Param<String> prefixPatternParam = new Param<>(String.class, "usernamePrefixPattern");
+	@SuppressWarnings("rawtypes")
+	private static final Param<Collection> memberIdsParam = new Param<>(Collection.class, "memberIds");
+	
+	private static final QMemberTeamDto projection = new QMemberTeamDto(
+			member.id.as("memberId"),
+			member.username,
+			member.age,
+			team.id.as("teamId"),
+			team.name.as("teamName")
+		);
+	
+	private final Map<Integer, QueryTemplate> templates = new ConcurrentHashMap<>();
+	
+	private final MemberFullTextIndex fullTextIndex;
+	
+	public MemberSearchQueryTemplates(MemberFullTextIndex fullTextIndex) {
+		this.fullTextIndex = fullTextIndex;
+	}
+	
+	public List<MemberTeamDto> search(EntityManager em, MemberSearchCondition condition) {
+		fullTextIndex.validate(condition);
+		int shape = shapeOf(condition);
+		
+		Map<ParamExpression<?>, Object> params = new HashMap<>();
+		if((shape & USERNAME) != 0) params.put(usernameParam, condition.getUsername());
+		if((shape & TEAM_NAME) != 0) params.put(teamNameParam, condition.getTeamName());
+		if((shape & AGE_GOE) != 0) params.put(ageGoeParam, condition.getAgeGoe());
+		if((shape & AGE_LOE) != 0) params.put(ageLoeParam, condition.getAgeLoe());
+		if((shape & USERNAME_PREFIX) != 0) {
+			params.put(prefixParam, condition.getUsernamePrefix());
+			params.put(prefixPatternParam, PrefixRange.likePattern(condition.getUsernamePrefix()));
+		}
+		if((shape & PREFIX_UPPER_BOUND) != 0) params.put(prefixUpperBoundParam, PrefixRange.upperBound(condition.getUsernamePrefix()));
+		if((shape & USERNAME_TEXT) != 0) {
+			List<Long> memberIds = fullTextIndex.memberIds(condition.getUsernameText());
+			if(memberIds.isEmpty()) { // in () 는 JPQL 로 만들 수 없고 결과도 없다
+				return new ArrayList<>();
+			}
+			params.put(memberIdsParam, memberIds);
+		}
+		
+		QueryTemplate template = templates.computeIfAbsent(shape, key -> compile(em, key));
+		Query query = em.createQuery(template.jpql);
+		JPAUtil.setConstants(query, template.constants, params);
+		
+		List<?> rows = query.getResultList();
+		List<MemberTeamDto> result = new ArrayList<>(rows.size());
+		for(Object row : rows) {
+			result.add(projection.newInstance((Object[]) row));
+		}
+		return result;
+	}
+	
+	static int shapeOf(MemberSearchCondition condition) {
+		int shape = 0;
+		if(StringUtils.hasText(condition.getUsername())) shape |= USERNAME;
+		if(StringUtils.hasText(condition.getTeamName())) shape |= TEAM_NAME;
+		if(condition.getAgeGoe() != null) shape |= AGE_GOE;
+		if(condition.getAgeLoe() != null) shape |= AGE_LOE;
+		if(StringUtils.hasText(condition.getUsernamePrefix())) {
+			shape |= USERNAME_PREFIX;
+			if(PrefixRange.upperBound(condition.getUsernamePrefix()) != null) shape |= PREFIX_UPPER_BOUND;
+		}
+		if(StringUtils.hasText(condition.getUsernameText())) shape |= USERNAME_TEXT;
+		return shape;
+	}
+	
+	private QueryTemplate compile(EntityManager em, int shape) {
+		BooleanBuilder where = new BooleanBuilder();
+		if((shape & USERNAME) != 0) where.and(member.username.eq(usernameParam));
+		if((shape & TEAM_NAME) != 0) where.and(team.name.eq(teamNameParam));
+		if((shape & AGE_GOE) != 0) where.and(member.age.goe(ageGoeParam));
+		if((shape & AGE_LOE) != 0) where.and(member.age.loe(ageLoeParam));
+		if((shape & USERNAME_PREFIX) != 0) {
+			where.and(PrefixRange.of(member.username, prefixParam,
+					(shape & PREFIX_UPPER_BOUND) != 0 ? prefixUpperBoundParam : null, prefixPatternParam));
+		}
+		if((shape & USERNAME_TEXT) != 0) where.and(Expressions.booleanOperation(Ops.IN, member.id, memberIdsParam));
+		
+		JPAQuery<MemberTeamDto> query = new JPAQuery<Void>()
+				.select(projection)
+				.from(member);
+		// teamName 조건이 있으면 left join 과 결과가 같으므로 team.name 인덱스를 쓸 수 있는 inner join
+		if((shape & TEAM_NAME) != 0) {
+			query.join(member.team, team);
+		} else {
+			query.leftJoin(member.team, team);
+		}
+		query.where(where);
+		
+		JPQLSerializer serializer = new JPQLSerializer(JPAProvider.getTemplates(em), em);
+		serializer.serialize(query.getMetadata(), false, null);
+		return new QueryTemplate(serializer.toString(), serializer.getConstants());
+	}
+	
+	private static class QueryTemplate {
+		private final String jpql;
+		private final List<Object> constants; // 바인딩 순서대로의 Param
+		
+		QueryTemplate(String jpql, List<Object> constants) {
+			this.jpql = jpql;
+			this.constants = constants;
+		}
+	}
+	
+}
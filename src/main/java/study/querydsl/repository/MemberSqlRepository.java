@@ -0,0 +1,104 @@
+package study.querydsl.repository;
+
+import static study.querydsl.sql.SMember.member;
+import static study.querydsl.sql.STeam.team;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
+
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.sql.SQLQuery;
+import com.querydsl.sql.SQLQueryFactory;
+
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.monitor.RepositoryMetrics;
+
+// MemberRepositoryImpl.search 와 같은 검색을 querydsl-sql 로 실행
+// JPQL -> SQL 변환, hibernate 결과 처리(엔티티 메타데이터, 영속성 컨텍스트) 없이 컬럼 5개를 바로 dto 로 만든다
+// 영속성 컨텍스트에서 아직 flush 하지 않은 변경은 보이지 않는다 (JPQL 과 달리 auto flush 가 없다)
+@Repository
+@Transactional(readOnly = true)
+public class MemberSqlRepository {
+	
+	private final SQLQueryFactory queryFactory;
+	private final RepositoryMetrics metrics;
+	private final MemberFullTextIndex fullTextIndex;
+	
+	public MemberSqlRepository(SQLQueryFactory queryFactory, RepositoryMetrics metrics, MemberFullTextIndex fullTextIndex) {
+		this.queryFactory = queryFactory;
+		this.metrics = metrics;
+		this.fullTextIndex = fullTextIndex;
+	}
+	
+	public List<MemberTeamDto> search(MemberSearchCondition condition) {
+		fullTextIndex.validate(condition);
+		return metrics.record("sqlSearch", RepositoryMetrics.shape(condition), () -> fetch(contentQuery(condition)), List::size);
+	}
+	
+	// fetch() 로 dto 를 만들면 값마다 Configuration 에서 타입을 찾고 박싱해서 생성자를 호출한다
+	// 컬럼 순서가 고정되어 있으므로 ResultSet 에서 바로 꺼낸다
+	private List<MemberTeamDto> fetch(SQLQuery<?> query) {
+		try(ResultSet rs = query.getResults()) {
+			List<MemberTeamDto> result = new ArrayList<>();
+			while(rs.next()) {
+				long memberId = rs.getLong(1);
+				String username = rs.getString(2);
+				int age = rs.getInt(3);
+				long teamId = rs.getLong(4);
+				Long nullableTeamId = rs.wasNull() ? null : teamId; // team 없는 member (left join)
+				result.add(new MemberTeamDto(memberId, username, age, nullableTeamId, rs.getString(5)));
+			}
+			return result;
+		} catch(SQLException e) {
+			throw queryFactory.getConfiguration().translate(e);
+		}
+	}
+	
+	private SQLQuery<?> contentQuery(MemberSearchCondition condition) {
+		SQLQuery<?> query = queryFactory
+				.select(member.memberId, member.username, member.age, team.id, team.name)
+				.from(member);
+		// teamName 조건이 있으면 inner join (MemberRepositoryImpl.joinTeam 과 같은 규칙)
+		if(StringUtils.hasText(condition.getTeamName())) {
+			query.innerJoin(team).on(member.teamId.eq(team.id));
+		} else {
+			query.leftJoin(team).on(member.teamId.eq(team.id));
+		}
+		return query.where(
+				usernameEq(condition.getUsername()),
+				usernamePrefix(condition.getUsernamePrefix()),
+				usernameText(condition.getUsernameText()),
+				teamNameEq(condition.getTeamName()),
+				ageGoe(condition.getAgeGoe()),
+				ageLoe(condition.getAgeLoe())
+				);
+	}
+	
+	private BooleanExpression usernameEq(String username) {
+		return StringUtils.hasText(username) ? member.username.eq(username) : null;
+	}
+	private BooleanExpression usernamePrefix(String prefix) {
+		return StringUtils.hasText(prefix) ? PrefixRange.of(member.username, prefix) : null;
+	}
+	// MemberRepositoryImpl.search 와 같이 member.search.full-text.max-results 명보다 많이 일치하면 거부
+	private BooleanExpression usernameText(String text) {
+		return StringUtils.hasText(text) ? member.memberId.in(fullTextIndex.memberIds(text)) : null;
+	}
+	private BooleanExpression teamNameEq(String teamName) {
+		return StringUtils.hasText(teamName) ? team.name.eq(teamName) : null;
+	}
+	private BooleanExpression ageGoe(Integer ageGoe) {
+		return ageGoe != null ? member.age.goe(ageGoe) : null;
+	}
+	private BooleanExpression ageLoe(Integer ageLoe) {
+		return ageLoe != null ? member.age.loe(ageLoe) : null;
+	}
+	
+}
@@ -0,0 +1,62 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.StringExpression;
+
+// 앞부분 일치 조건을 인덱스 범위 조건으로 변환
+// path like 'abc%' 는 바인드 파라미터로 넘어가면 DB 가 실행 계획을 만들 때 패턴을 몰라서 인덱스를 못 쓸 수 있다
+// -> path >= 'abc' and path < 'abd' (마지막 문자 + 1) 는 어떤 DB 든 B-tree 범위 스캔
+// 범위는 스캔할 구간만 좁히고 결과는 like 로 한 번 더 거른다
+// (대소문자 / 악센트를 무시하는 collation 에서는 범위 안에 'ABC' 처럼 prefix 로 시작하지 않는 값이 들어올 수 있다)
+final class PrefixRange {
+	
+	// querydsl JPQL / SQL 템플릿의 기본 like escape 문자
+	private static final char ESCAPE = '!';
+	
+	private PrefixRange() {
+	}
+	
+	static BooleanExpression of(StringExpression path, String prefix) {
+		String upperBound = upperBound(prefix);
+		if(upperBound == null) {
+			return path.startsWith(prefix);
+		}
+		return path.goe(prefix).and(path.lt(upperBound)).and(path.startsWith(prefix));
+	}
+	
+	// MemberSearchQueryTemplates 용 : 값 대신 파라미터 (prefix, upperBound(prefix), likePattern(prefix) 를 바인딩)
+	// upperBound 가 없는 prefix 는 upperBound = null -> like 만
+	static BooleanExpression of(StringExpression path, Expression<String> prefix, Expression<String> upperBound, Expression<String> likePattern) {
+		BooleanExpression like = path.like(likePattern, ESCAPE);
+		if(upperBound == null) {
+			return like;
+		}
+		return path.goe(prefix).and(path.lt(upperBound)).and(like);
+	}
+	
+	// startsWith 와 같은 like 패턴 : 와일드카드 문자(%, _)와 escape 문자는 escape 해서 그대로 비교
+	static String likePattern(String prefix) {
+		StringBuilder pattern = new StringBuilder(prefix.length() + 1);
+		for(char each : prefix.toCharArray()) {
+			if(each == ESCAPE || each == '%' || each == '_') {
+				pattern.append(ESCAPE);
+			}
+			pattern.append(each);
+		}
+		return pattern.append('%').toString();
+	}
+	
+	// prefix 로 시작하는 모든 문자열보다 큰 가장 작은 문자열
+	// 마지막 문자가 Character.MAX_VALUE 라 증가할 수 없으면 그 문자를 버리고 앞 문자를 증가, 모두 MAX_VALUE 면 null
+	static String upperBound(String prefix) {
+		for(int i = prefix.length() - 1; i >= 0; i--) {
+			char last = prefix.charAt(i);
+			if(last != Character.MAX_VALUE) {
+				return prefix.substring(0, i) + (char) (last + 1);
+			}
+		}
+		return null;
+	}
+	
+}
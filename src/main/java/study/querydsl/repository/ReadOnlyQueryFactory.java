@@ -0,0 +1,33 @@
+package study.querydsl.repository;
+
+import javax.persistence.EntityManager;
+
+import org.hibernate.FlushMode;
+import org.hibernate.jpa.QueryHints;
+
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+
+// 조회 전용 JPAQueryFactory : 모든 select 에 아래 힌트를 붙인다
+// - org.hibernate.readOnly : 조회한 엔티티를 읽기 전용으로 영속성 컨텍스트에 올린다
+//   변경 감지용 스냅샷(loaded state)을 보관하지 않으므로 영속성 컨텍스트가 잡고 있는 메모리가 엔티티마다 줄고
+//   flush 때 dirty checking 대상에서도 빠진다 (값을 바꿔도 update 되지 않는다)
+// - org.hibernate.flushMode=MANUAL : 쿼리 실행 전에 자동 flush 하지 않는다
+//   같은 트랜잭션에서 아직 flush 안 된 변경은 결과에 반영되지 않으므로 쓰기 작업과 섞어서 쓰지 않는다
+// 지연 로딩으로 나중에 읽히는 연관 엔티티까지 읽기 전용으로 하려면 @Transactional(readOnly = true) 안에서 사용
+// (스프링이 세션 기본값을 읽기 전용 + FlushMode.MANUAL 로 바꾼다)
+public class ReadOnlyQueryFactory extends JPAQueryFactory {
+	
+	public ReadOnlyQueryFactory(EntityManager em) {
+		super(em);
+	}
+	
+	@Override
+	public JPAQuery<?> query() {
+		JPAQuery<?> query = super.query();
+		query.setHint(QueryHints.HINT_READONLY, true);
+		query.setHint(QueryHints.HINT_FLUSH_MODE, FlushMode.MANUAL);
+		return query;
+	}
+	
+}
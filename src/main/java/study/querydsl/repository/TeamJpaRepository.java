@@ -0,0 +1,99 @@
+package study.querydsl.repository;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+import static study.querydsl.entity.QTeamStatistics.teamStatistics;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import javax.persistence.EntityManager;
+
+import org.hibernate.jpa.QueryHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Repository;
+
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+
+import study.querydsl.dto.QTeamStatisticsDto;
+import study.querydsl.dto.TeamStatisticsDto;
+import study.querydsl.entity.Team;
+
+@Repository
+public class TeamJpaRepository {
+	
+	private final EntityManager em;
+	private final JPAQueryFactory queryFactory;
+	
+	public TeamJpaRepository(EntityManager em, JPAQueryFactory queryFactory) {
+		this.em = em;
+		this.queryFactory = queryFactory;
+	}
+	
+	public void save(Team team) {
+		em.persist(team);
+	}
+	
+	// 2차 캐시 -> DB 순으로 조회
+	public Optional<Team> findById(Long id) {
+		return Optional.ofNullable(em.find(Team.class, id));
+	}
+	
+	// 이름 -> id 는 쿼리 캐시, id -> Team 은 엔티티 캐시에서 찾는다
+	// 이름이 같은 팀이 여러 개면 id 가 가장 작은 팀
+	public Optional<Team> findByName(String name) {
+		return Optional.ofNullable(queryFactory
+				.selectFrom(team)
+				.where(team.name.eq(name))
+				.orderBy(team.id.asc())
+				.setHint(QueryHints.HINT_CACHEABLE, true)
+				.setHint(QueryHints.HINT_CACHE_REGION, Team.NAME_QUERY_CACHE_REGION)
+				.fetchFirst());
+	}
+	
+	// 팀 페이지 + 소속 멤버
+	// 컬렉션 fetch join + 페이징은 DB가 아닌 메모리에서 페이징하므로(HHH000104) 두 단계로 나눈다
+	// 1. 팀 id 만 페이징해서 조회
+	// 2. 해당 팀들을 members 와 fetch join (id IN 한 번)
+	// count 는 필요할 때만 실행 -> content 2번 + count 최대 1번
+	public Page<Team> findAllWithMembers(Pageable pageable) {
+		List<Long> ids = queryFactory
+				.select(team.id)
+				.from(team)
+				.orderBy(team.id.asc())
+				.offset(pageable.getOffset())
+				.limit(pageable.getPageSize())
+				.fetch();
+		
+		List<Team> content = ids.isEmpty() ? Collections.emptyList() : queryFactory
+				.selectFrom(team).distinct()
+				.leftJoin(team.members, member).fetchJoin()
+				.where(team.id.in(ids))
+				.orderBy(team.id.asc())
+				.fetch();
+		
+		JPAQuery<Long> countQuery = queryFactory
+				.select(team.count())
+				.from(team);
+		
+		return PageableExecutionUtils.getPage(content, pageable, countQuery::fetchOne);
+	}
+	
+	// 팀별 member 수 / 나이 합계, 평균, 최소, 최대
+	// member group by 대신 미리 계산해둔 team_statistics 를 읽는다 -> member 수와 관계없이 팀 개수만큼만 읽는다
+	// member 가 없는 팀은 0 (평균 / 최소 / 최대는 null)
+	public List<TeamStatisticsDto> findAllStatistics() {
+		return queryFactory
+				.select(new QTeamStatisticsDto(team.id, team.name,
+						teamStatistics.memberCount, teamStatistics.ageSum, teamStatistics.ageMin, teamStatistics.ageMax))
+				.from(team)
+				.leftJoin(teamStatistics).on(teamStatistics.teamId.eq(team.id))
+				.orderBy(team.id.asc())
+				.fetch();
+	}
+	
+}
@@ -0,0 +1,27 @@
+package study.querydsl.repository;
+
+import java.util.regex.Pattern;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.stereotype.Component;
+
+// hibernate 가 실행하는 모든 SQL 을 보고 member / team 쓰기가 있으면 TeamStatisticsListener 에 알린다
+// flush 밖에서 실행된 쓰기 (queryFactory.update(member) 같은 벌크 연산, 직접 실행한 SQL) 는 다음 flush 에서 통계를 다시 계산
+// 엔티티 이벤트로는 벌크 연산을 알 수 없어서 SQL 단계에서 확인한다 (MemberSearchCacheInvalidator 와 같은 방식)
+@Component
+public class TeamStatisticsInvalidator implements StatementInspector {
+	
+	// use_sql_comments 설정 시 앞에 붙는 /* ... */ 주석은 건너뛴다, team_statistics 는 제외 (\b)
+	private static final Pattern WRITE_SQL = Pattern.compile(
+			"^\\s*(?:/\\*.*?\\*/\\s*)?(?:insert\\s+into|update|delete\\s+from|merge\\s+into)\\s+(?:member|team)\\b",
+			Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+	
+	@Override
+	public String inspect(String sql) {
+		if(WRITE_SQL.matcher(sql).find()) {
+			TeamStatisticsListener.onWriteSql();
+		}
+		return sql;
+	}
+	
+}
@@ -0,0 +1,346 @@
+package study.querydsl.repository;
+
+import java.io.Serializable;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+import org.hibernate.SharedSessionContract;
+import org.hibernate.boot.Metadata;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.AutoFlushEvent;
+import org.hibernate.event.spi.AutoFlushEventListener;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.FlushEvent;
+import org.hibernate.event.spi.FlushEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.proxy.HibernateProxy;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.entity.TeamStatistics;
+
+// member insert / delete / age 변경 / changeTeam 을 보고 team_statistics 를 증분 갱신
+// - flush 중에는 팀별 변화량(count, sum)만 모아두고 flush 가 끝나면 팀마다 update 두 번 (JDBC batch)
+// - member_count / age_sum 은 변화량을 더하고 age_min / age_max 는 (team_id, age) 인덱스로 다시 읽는다 (팀마다 인덱스 탐색 2번)
+// - min / max 는 count / sum update 로 통계 row 잠금을 잡은 뒤 별도 update 로 읽는다
+//   -> 같은 팀을 바꾸는 다른 트랜잭션이 커밋한 member 까지 보인다 (한 문장으로 하면 잠금을 기다리기 전의 데이터를 읽는다)
+// - team 을 insert 할 때 빈 통계 row 를 같이 insert 한다 -> member 변화는 항상 update 만 (team id 가 유일하므로 동시 insert 충돌이 없다)
+// - SQL 로 직접 넣은 team 처럼 통계 row 가 없으면 그 팀 member 를 집계해서 merge (H2 MERGE ... KEY, 이미 있으면 update)
+// hibernate 이벤트가 없는 쓰기 (querydsl 벌크 연산, StatelessSession, 직접 실행한 SQL) 는 rebuild 로 전체를 다시 계산한다
+// - TeamStatisticsInvalidator(StatementInspector) 가 flush 밖에서 실행된 member / team 쓰기 SQL 을 보면 markStale
+//   (id 는 모두 시퀀스라서 엔티티 insert / update / delete SQL 은 flush 안에서만 실행된다)
+// - 같은 스레드의 다음 flush / auto flush (조회 전, 커밋 전) 에서 rebuild
+// - flush 이벤트가 없는 StatelessSession(MemberBulkProcessor) 은 직접 rebuild 를 호출
+// - 스레드 로컬 표시는 트랜잭션이 끝날 때 지운다 (롤백, 읽기 전용 트랜잭션처럼 flush 없이 끝나도 다음 트랜잭션으로 넘어가지 않게)
+public class TeamStatisticsListener implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener,
+		FlushEventListener, AutoFlushEventListener {
+	
+	private static final String UPDATE_SQL = "update team_statistics"
+			+ " set member_count = member_count + ?, age_sum = age_sum + ?"
+			+ " where team_id = ?";
+	private static final String MIN_MAX_SQL = "update team_statistics"
+			+ " set age_min = (select min(m.age) from member m where m.team_id = ?),"
+			+ " age_max = (select max(m.age) from member m where m.team_id = ?)"
+			+ " where team_id = ?";
+	private static final String SEED_SQL = "insert into team_statistics (team_id, member_count, age_sum, age_min, age_max)"
+			+ " values (?, 0, 0, null, null)";
+	private static final String MERGE_SQL = "merge into team_statistics (team_id, member_count, age_sum, age_min, age_max) key (team_id)"
+			+ " select cast(? as bigint), count(*), coalesce(sum(m.age), 0), min(m.age), max(m.age) from member m where m.team_id = ?";
+	private static final String DELETE_SQL = "delete from team_statistics where team_id = ?";
+	// member 가 없는 팀도 빈 row 를 만든다
+	private static final String REBUILD_SQL = "insert into team_statistics (team_id, member_count, age_sum, age_min, age_max)"
+			+ " select t.id, count(m.member_id), coalesce(sum(m.age), 0), min(m.age), max(m.age)"
+			+ " from team t left join member m on m.team_id = t.id group by t.id";
+	
+	// 지금 스레드에서 flush 중인지 (flush 시작 전 리스너가 켜고 통계 갱신 후 끈다)
+	private static final ThreadLocal<Boolean> FLUSHING = ThreadLocal.withInitial(() -> false);
+	// flush 밖에서 member / team 을 바꾼 SQL 이 실행됐는지
+	private static final ThreadLocal<Boolean> STALE = ThreadLocal.withInitial(() -> false);
+	// 트랜잭션 종료 콜백을 트랜잭션마다 한 번만 등록하기 위한 리소스 key
+	private static final Object RESET_ON_COMPLETION = new Object();
+	
+	// 세션별로 아직 반영하지 않은 변화량
+	private final Map<EventSource, Changes> pending = Collections.synchronizedMap(new WeakHashMap<>());
+	
+	public static Integrator integrator() {
+		return new Integrator() {
+			@Override
+			public void integrate(Metadata metadata, SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+				TeamStatisticsListener listener = new TeamStatisticsListener();
+				EventListenerRegistry registry = serviceRegistry.getService(EventListenerRegistry.class);
+				registry.appendListeners(EventType.POST_INSERT, listener);
+				registry.appendListeners(EventType.POST_UPDATE, listener);
+				registry.appendListeners(EventType.POST_DELETE, listener);
+				// 기본 flush 리스너 다음에 실행 -> member SQL 이 모두 실행된 뒤 통계를 갱신
+				registry.appendListeners(EventType.FLUSH, listener);
+				registry.appendListeners(EventType.AUTO_FLUSH, listener);
+				// 기본 flush 리스너 전에 실행 -> flush 가 실행하는 엔티티 SQL 은 벌크 쓰기로 보지 않는다
+				registry.prependListeners(EventType.FLUSH, (FlushEventListener) event -> startFlush());
+				registry.prependListeners(EventType.AUTO_FLUSH, (AutoFlushEventListener) event -> startFlush());
+			}
+			
+			@Override
+			public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+			}
+		};
+	}
+	
+	// member / team 쓰기 SQL 이 실행될 때 (TeamStatisticsInvalidator)
+	// flush 밖이면 이벤트로 알 수 없는 벌크 쓰기 -> 다음 flush 에서 rebuild
+	public static void onWriteSql() {
+		if(!FLUSHING.get()) {
+			STALE.set(true);
+			resetOnCompletion();
+		}
+	}
+	
+	static boolean isStale() {
+		return STALE.get();
+	}
+	
+	private static void startFlush() {
+		FLUSHING.set(true);
+		resetOnCompletion(); // flush 중 예외로 onFlush 가 실행되지 않아도 지워지게
+	}
+	
+	// 롤백되거나 flush 없이 끝난 트랜잭션(FlushMode.MANUAL)의 표시가 이 스레드의 다음 트랜잭션에서 rebuild 를 일으키지 않게
+	// 트랜잭션 동기화가 없으면 (스프링 트랜잭션 밖) 다음 flush 에서 지워진다
+	private static void resetOnCompletion() {
+		if(!TransactionSynchronizationManager.isSynchronizationActive()
+				|| TransactionSynchronizationManager.hasResource(RESET_ON_COMPLETION)) {
+			return;
+		}
+		TransactionSynchronizationManager.bindResource(RESET_ON_COMPLETION, Boolean.TRUE);
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			private boolean suspendedStale;
+			
+			// REQUIRES_NEW 로 다른 트랜잭션이 끼어들면 그 트랜잭션과 표시가 섞이지 않게 잠시 치워둔다
+			@Override
+			public void suspend() {
+				TransactionSynchronizationManager.unbindResourceIfPossible(RESET_ON_COMPLETION);
+				suspendedStale = STALE.get();
+				STALE.remove();
+			}
+			
+			@Override
+			public void resume() {
+				TransactionSynchronizationManager.bindResource(RESET_ON_COMPLETION, Boolean.TRUE);
+				if(suspendedStale) {
+					STALE.set(true);
+				}
+			}
+			
+			@Override
+			public void afterCompletion(int status) {
+				TransactionSynchronizationManager.unbindResourceIfPossible(RESET_ON_COMPLETION);
+				STALE.remove();
+				FLUSHING.remove();
+			}
+		});
+	}
+	
+	// member 테이블에서 전체 통계를 다시 계산 (호출한 세션의 트랜잭션에서 실행)
+	public static void rebuild(SharedSessionContract session) {
+		STALE.set(false);
+		session.createNativeQuery("delete from team_statistics")
+				.addSynchronizedEntityClass(TeamStatistics.class)
+				.executeUpdate();
+		session.createNativeQuery(REBUILD_SQL)
+				.addSynchronizedEntityClass(TeamStatistics.class)
+				.executeUpdate();
+	}
+	
+	@Override
+	public void onPostInsert(PostInsertEvent event) {
+		if(event.getEntity() instanceof Member) {
+			changes(event.getSession()).add(teamId(event.getPersister(), event.getState()), age(event.getPersister(), event.getState()), 1);
+		} else if(event.getEntity() instanceof Team) {
+			changes(event.getSession()).insertedTeams.add((Long) event.getId());
+		}
+	}
+	
+	@Override
+	public void onPostUpdate(PostUpdateEvent event) {
+		if(!(event.getEntity() instanceof Member)) {
+			return;
+		}
+		EntityPersister persister = event.getPersister();
+		Object[] oldState = event.getOldState();
+		if(oldState == null) { // 스냅샷 없이 update 된 경우 (이전 팀 / 나이를 알 수 없다)
+			changes(event.getSession()).rebuild = true;
+			return;
+		}
+		Long oldTeamId = teamId(persister, oldState);
+		Long newTeamId = teamId(persister, event.getState());
+		int oldAge = age(persister, oldState);
+		int newAge = age(persister, event.getState());
+		if(oldAge != newAge || !equals(oldTeamId, newTeamId)) {
+			Changes changes = changes(event.getSession());
+			changes.add(oldTeamId, oldAge, -1);
+			changes.add(newTeamId, newAge, 1);
+		}
+	}
+	
+	@Override
+	public void onPostDelete(PostDeleteEvent event) {
+		if(event.getEntity() instanceof Member) {
+			changes(event.getSession()).add(teamId(event.getPersister(), event.getDeletedState()), age(event.getPersister(), event.getDeletedState()), -1);
+		} else if(event.getEntity() instanceof Team) {
+			changes(event.getSession()).deletedTeams.add((Long) event.getId());
+		}
+	}
+	
+	@Override
+	public boolean requiresPostCommitHanding(EntityPersister persister) {
+		return false;
+	}
+	
+	@Override
+	public void onFlush(FlushEvent event) {
+		FLUSHING.set(false);
+		apply(event.getSession());
+	}
+	
+	@Override
+	public void onAutoFlush(AutoFlushEvent event) {
+		FLUSHING.set(false);
+		apply(event.getSession());
+	}
+	
+	private Changes changes(EventSource session) {
+		return pending.computeIfAbsent(session, key -> new Changes());
+	}
+	
+	private void apply(EventSource session) {
+		Changes changes = pending.remove(session);
+		if(STALE.get() || changes != null && changes.rebuild) { // 전체를 다시 계산하므로 모아둔 변화량은 버린다
+			rebuild(session);
+			return;
+		}
+		if(changes == null) {
+			return;
+		}
+		session.doWork(connection -> {
+			// member 변화량보다 먼저 -> 같은 flush 에서 insert 한 team / member 도 update 로 반영된다
+			if(!changes.insertedTeams.isEmpty()) {
+				try(PreparedStatement seed = connection.prepareStatement(SEED_SQL)) {
+					for(Long teamId : changes.insertedTeams) {
+						seed.setLong(1, teamId);
+						seed.addBatch();
+					}
+					seed.executeBatch();
+				}
+			}
+			Set<Long> missing = new LinkedHashSet<>();
+			if(!changes.deltas.isEmpty()) {
+				List<Long> teamIds = new ArrayList<>(changes.deltas.keySet());
+				try(PreparedStatement update = connection.prepareStatement(UPDATE_SQL)) {
+					for(Long teamId : teamIds) {
+						Delta delta = changes.deltas.get(teamId);
+						update.setLong(1, delta.count);
+						update.setLong(2, delta.ageSum);
+						update.setLong(3, teamId);
+						update.addBatch();
+					}
+					int[] counts = update.executeBatch();
+					for(int i = 0; i < counts.length; i++) {
+						if(counts[i] == 0) { // SUCCESS_NO_INFO(-2) 는 갱신된 것으로 본다
+							missing.add(teamIds.get(i));
+						}
+					}
+				}
+				if(missing.size() < teamIds.size()) {
+					try(PreparedStatement minMax = connection.prepareStatement(MIN_MAX_SQL)) {
+						for(Long teamId : teamIds) {
+							if(!missing.contains(teamId)) {
+								minMax.setLong(1, teamId);
+								minMax.setLong(2, teamId);
+								minMax.setLong(3, teamId);
+								minMax.addBatch();
+							}
+						}
+						minMax.executeBatch();
+					}
+				}
+			}
+			if(!missing.isEmpty()) {
+				try(PreparedStatement merge = connection.prepareStatement(MERGE_SQL)) {
+					for(Long teamId : missing) {
+						merge.setLong(1, teamId);
+						merge.setLong(2, teamId);
+						merge.addBatch();
+					}
+					merge.executeBatch();
+				}
+			}
+			if(!changes.deletedTeams.isEmpty()) {
+				try(PreparedStatement delete = connection.prepareStatement(DELETE_SQL)) {
+					for(Long teamId : changes.deletedTeams) {
+						delete.setLong(1, teamId);
+						delete.addBatch();
+					}
+					delete.executeBatch();
+				}
+			}
+		});
+	}
+	
+	private static Long teamId(EntityPersister persister, Object[] state) {
+		Object team = state[persister.getEntityMetamodel().getPropertyIndex("team")];
+		if(team instanceof HibernateProxy) { // 프록시는 초기화하지 않고 id 만 꺼낸다
+			return (Long) ((HibernateProxy) team).getHibernateLazyInitializer().getIdentifier();
+		}
+		return team != null ? ((Team) team).getId() : null;
+	}
+	
+	private static int age(EntityPersister persister, Object[] state) {
+		return (Integer) state[persister.getEntityMetamodel().getPropertyIndex("age")];
+	}
+	
+	private static boolean equals(Long a, Long b) {
+		return a == null ? b == null : a.equals(b);
+	}
+	
+	private static class Changes {
+		final Map<Long, Delta> deltas = new HashMap<>(); // team id -> 변화량
+		final Set<Long> insertedTeams = new LinkedHashSet<>();
+		final Set<Long> deletedTeams = new HashSet<>();
+		boolean rebuild;
+		
+		void add(Long teamId, int age, int count) {
+			if(teamId != null) {
+				Delta delta = deltas.computeIfAbsent(teamId, key -> new Delta());
+				delta.count += count;
+				delta.ageSum += (long) age * count;
+			}
+		}
+	}
+	
+	private static class Delta implements Serializable {
+		private static final long serialVersionUID = 1L;
+		long count;
+		long ageSum;
+	}
+	
+}
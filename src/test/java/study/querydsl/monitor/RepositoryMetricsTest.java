@@ -0,0 +1,114 @@
+package study.querydsl.monitor;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static study.querydsl.entity.QMember.member;
+
+import javax.persistence.EntityManager;
+
+import org.assertj.core.api.Assertions;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.metrics.AutoConfigureMetrics;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.BulkQueryExecutor;
+import study.querydsl.repository.MemberJpaRepository;
+import study.querydsl.repository.MemberRepository;
+
+@SpringBootTest(properties = "management.endpoints.web.exposure.include=prometheus")
+@AutoConfigureMockMvc
+@AutoConfigureMetrics
+@Transactional
+public class RepositoryMetricsTest {
+	
+	@Autowired
+	EntityManager em;
+	
+	@Autowired
+	MeterRegistry registry;
+	
+	@Autowired
+	MockMvc mockMvc;
+	
+	@Autowired
+	MemberRepository memberRepository;
+	
+	@Autowired
+	MemberJpaRepository memberJpaRepository;
+	
+	@Autowired
+	BulkQueryExecutor bulkQueryExecutor;
+	
+	@Autowired
+	RepositoryMetrics metrics;
+	
+	@BeforeEach
+	public void before() {
+		Team teamA = new Team("teamA");
+		em.persist(teamA);
+		for(int i = 0; i < 5; i++) {
+			em.persist(new Member("member" + i, i * 10, teamA));
+		}
+	}
+	
+	@Test
+	public void searchAndCount() {
+		MemberSearchCondition condition = new MemberSearchCondition();
+		condition.setTeamName("teamA");
+		condition.setAgeGoe(10);
+		
+		memberRepository.search(condition);
+		memberRepository.searchPageComplex(condition, PageRequest.of(0, 2));
+		
+		Assertions.assertThat(registry.get(RepositoryMetrics.TIMER)
+				.tags("method", "search", "shape", "teamName+ageGoe", "outcome", "SUCCESS").timer().count()).isEqualTo(1);
+		Assertions.assertThat(registry.get(RepositoryMetrics.ROWS)
+				.tags("method", "search", "shape", "teamName+ageGoe").summary().totalAmount()).isEqualTo(4);
+		// 2개씩 4건 -> 첫 페이지가 다 차므로 count 실행
+		Assertions.assertThat(registry.get(RepositoryMetrics.COUNT_TIMER)
+				.tags("method", "searchPageComplex", "shape", "teamName+ageGoe").timer().count()).isEqualTo(1);
+	}
+	
+	@Test
+	public void findByUsernameAndBulk() {
+		memberJpaRepository.findByUsername("member1");
+		long updated = bulkQueryExecutor.update(member, member.age.goe(30), clause -> clause.set(member.age, 0));
+		
+		Assertions.assertThat(registry.get(RepositoryMetrics.ROWS)
+				.tags("method", "findByUsername").summary().count()).isPositive();
+		Assertions.assertThat(registry.get(RepositoryMetrics.ROWS)
+				.tags("method", "bulkUpdate", "shape", "Member").summary().totalAmount()).isEqualTo(updated);
+	}
+	
+	@Test
+	public void error() {
+		Assertions.assertThatThrownBy(() -> metrics.record("test", "none", () -> {
+			throw new IllegalStateException();
+		}, each -> 0)).isInstanceOf(IllegalStateException.class);
+		
+		Assertions.assertThat(registry.get(RepositoryMetrics.TIMER)
+				.tags("method", "test", "outcome", "ERROR", "exception", "IllegalStateException").timer().count()).isEqualTo(1);
+	}
+	
+	@Test
+	public void prometheus() throws Exception {
+		memberRepository.search(new MemberSearchCondition());
+		
+		mockMvc.perform(get("/actuator/prometheus"))
+				.andExpect(status().isOk())
+				.andExpect(content().string(Matchers.containsString("member_repository_seconds_count{exception=\"none\",method=\"search\",outcome=\"SUCCESS\",shape=\"none\",}")));
+	}
+	
+}
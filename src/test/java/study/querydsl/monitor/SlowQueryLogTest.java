@@ -0,0 +1,91 @@
+package study.querydsl.monitor;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+import java.time.Duration;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+// threshold 0 -> 모든 SQL 을 느린 쿼리로 기록
+@SpringBootTest(properties = "member.sql.slow-query.threshold=0ms")
+@Transactional
+public class SlowQueryLogTest {
+	
+	@Autowired
+	EntityManager em;
+	
+	@Autowired
+	JPAQueryFactory queryFactory;
+	
+	@Autowired
+	SlowQueryLog slowQueryLog;
+	
+	@BeforeEach
+	public void before() {
+		Team teamA = new Team("teamA");
+		em.persist(teamA);
+		em.persist(new Member("member1", 10, teamA));
+		em.persist(new Member("member2", 20, teamA));
+		em.flush();
+		em.clear();
+		slowQueryLog.clear();
+	}
+	
+	@Test
+	public void recordWithExplain() {
+		List<Member> result = queryFactory
+				.selectFrom(member)
+				.join(member.team, team)
+				.where(member.username.eq("member1"), member.age.goe(10))
+				.fetch();
+		Assertions.assertThat(result).hasSize(1);
+		
+		List<SlowQueryLog.Entry> entries = slowQueryLog.getEntries();
+		Assertions.assertThat(entries).hasSize(1);
+		SlowQueryLog.Entry entry = entries.get(0);
+		Assertions.assertThat(entry.getJpql()).startsWith("select member1 from Member member1");
+		Assertions.assertThat(entry.getParameterShape()).isEqualTo("[String, Integer]");
+		Assertions.assertThat(entry.getSql()).startsWith("select");
+		Assertions.assertThat(entry.getExplain()).containsIgnoringCase(Member.USERNAME_INDEX);
+	}
+	
+	// 기준 시간을 바꾸면 바로 적용
+	@Test
+	public void changeThreshold() {
+		slowQueryLog.setThreshold(Duration.ofHours(1));
+		try {
+			queryFactory.selectFrom(member).fetch();
+			Assertions.assertThat(slowQueryLog.getEntries()).isEmpty();
+		} finally {
+			slowQueryLog.setThreshold(Duration.ZERO);
+		}
+		
+		queryFactory.selectFrom(member).fetch();
+		Assertions.assertThat(slowQueryLog.getEntries()).hasSize(1);
+	}
+	
+	// select 가 아니면 EXPLAIN 하지 않는다
+	@Test
+	public void noExplainForUpdate() {
+		queryFactory.update(member).set(member.age, 30).where(member.username.eq("member2")).execute();
+		
+		SlowQueryLog.Entry entry = slowQueryLog.getEntries().get(0);
+		Assertions.assertThat(entry.getSql()).startsWith("update");
+		Assertions.assertThat(entry.getExplain()).isNull();
+	}
+	
+}
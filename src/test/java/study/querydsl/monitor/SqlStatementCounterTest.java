@@ -0,0 +1,105 @@
+package study.querydsl.monitor;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+import java.util.List;
+
+import javax.persistence.EntityManager;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+// 지연 로딩을 하나씩 초기화하도록 batch fetch 를 끄고, 두 번 반복되면 N+1 로 본다
+@SpringBootTest(properties = {
+		"spring.jpa.properties.hibernate.default_batch_fetch_size=1",
+		"member.sql.n-plus-one-threshold=2"
+})
+@Transactional
+public class SqlStatementCounterTest {
+	
+	@Autowired
+	EntityManager em;
+	
+	@Autowired
+	JPAQueryFactory queryFactory;
+	
+	@Autowired
+	SqlStatementCounter counter;
+	
+	@BeforeEach
+	public void before() {
+		Team teamA = new Team("teamA");
+		Team teamB = new Team("teamB");
+		em.persist(teamA);
+		em.persist(teamB);
+		em.persist(new Member("member1", 10, teamA));
+		em.persist(new Member("member2", 20, teamA));
+		em.persist(new Member("member3", 30, teamB));
+		em.persist(new Member("member4", 40, teamB));
+		em.flush();
+		em.clear();
+	}
+	
+	// team 조회 1번 + team 마다 members 컬렉션 초기화 N번
+	@Test
+	public void detectNPlusOne() {
+		try(SqlStatementCounter.Scope scope = counter.start()) {
+			List<Team> teams = queryFactory
+					.selectFrom(team)
+					.fetch();
+			for(Team each : teams) {
+				each.getMembers().size();
+			}
+			
+			Assertions.assertThat(scope.getCount()).isEqualTo(3);
+			Assertions.assertThat(scope.getNPlusOnes()).hasSize(1);
+			Assertions.assertThat(scope.getNPlusOnes().get(0).getAssociation()).isEqualTo(Team.class.getName() + ".members");
+			Assertions.assertThat(scope.getNPlusOnes().get(0).getCallSite()).contains(SqlStatementCounterTest.class.getName());
+			Assertions.assertThatThrownBy(() -> scope.assertAtMost(1)).isInstanceOf(AssertionError.class);
+			Assertions.assertThatThrownBy(scope::assertNoNPlusOne).isInstanceOf(AssertionError.class);
+		}
+	}
+	
+	// 같은 쿼리를 파라미터만 바꿔서 직접 여러 번 실행하는 것은 N+1 이 아니다 (개수만 센다)
+	@Test
+	public void repeatedQueryIsNotNPlusOne() {
+		try(SqlStatementCounter.Scope scope = counter.start()) {
+			for(String username : new String[] {"member1", "member2", "member3"}) {
+				queryFactory
+						.selectFrom(member)
+						.where(member.username.eq(username))
+						.fetchOne();
+			}
+			
+			Assertions.assertThat(scope.getCount()).isEqualTo(3);
+			scope.assertNoNPlusOne();
+		}
+	}
+	
+	@Test
+	public void fetchJoin() {
+		try(SqlStatementCounter.Scope scope = counter.start()) {
+			List<Member> members = queryFactory
+					.selectFrom(member)
+					.join(member.team, team).fetchJoin()
+					.fetch();
+			for(Member each : members) {
+				each.getTeam().getName();
+			}
+			
+			scope.assertAtMost(1);
+			scope.assertNoNPlusOne();
+		}
+	}
+	
+}
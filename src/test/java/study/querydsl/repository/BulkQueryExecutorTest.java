@@ -0,0 +1,69 @@
+package study.querydsl.repository;
+
+import static study.querydsl.entity.QMember.member;
+
+import javax.persistence.EntityManager;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+@SpringBootTest
+@Transactional
+public class BulkQueryExecutorTest {
+	
+	@Autowired
+	EntityManager em;
+	
+	@Autowired
+	BulkQueryExecutor bulkQueryExecutor;
+	
+	@Test
+	public void bulkUpdateDetachOnlyAffected() {
+		Team teamA = new Team("teamA");
+		em.persist(teamA);
+		
+		Member member1 = new Member("member1", 10, teamA);
+		Member member2 = new Member("member2", 20, teamA);
+		Member member3 = new Member("member3", 30, teamA);
+		em.persist(member1);
+		em.persist(member2);
+		em.persist(member3);
+		
+		long count = bulkQueryExecutor.update(member, member.age.lt(28),
+				clause -> clause.set(member.username, "비회원"));
+		
+		Assertions.assertThat(count).isEqualTo(2);
+		
+		// 영향받은 엔티티만 영속성 컨텍스트에서 제거
+		Assertions.assertThat(em.contains(member1)).isFalse();
+		Assertions.assertThat(em.contains(member2)).isFalse();
+		Assertions.assertThat(em.contains(member3)).isTrue();
+		Assertions.assertThat(em.contains(teamA)).isTrue();
+		
+		// 다시 조회하면 DB에 반영된 값
+		Assertions.assertThat(em.find(Member.class, member1.getId()).getUsername()).isEqualTo("비회원");
+		Assertions.assertThat(em.find(Member.class, member3.getId())).isSameAs(member3);
+	}
+	
+	@Test
+	public void bulkDeleteDetachOnlyAffected() {
+		Member member1 = new Member("member1", 10);
+		Member member2 = new Member("member2", 20);
+		em.persist(member1);
+		em.persist(member2);
+		
+		long count = bulkQueryExecutor.delete(member, member.age.gt(18));
+		
+		Assertions.assertThat(count).isEqualTo(1);
+		Assertions.assertThat(em.contains(member1)).isTrue();
+		Assertions.assertThat(em.contains(member2)).isFalse();
+		Assertions.assertThat(em.find(Member.class, member2.getId())).isNull();
+	}
+	
+}
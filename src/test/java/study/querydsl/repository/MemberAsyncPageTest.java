@@ -0,0 +1,99 @@
+package study.querydsl.repository;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+import javax.persistence.EntityManager;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import study.querydsl.config.SearchExecutorConfig;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+// content / count 를 다른 스레드의 트랜잭션에서 조회하므로 데이터를 커밋해두고 테스트한다
+@SpringBootTest
+public class MemberAsyncPageTest {
+	
+	@Autowired
+	EntityManager em;
+	
+	@Autowired
+	JPAQueryFactory queryFactory;
+	
+	@Autowired
+	TransactionTemplate transactionTemplate;
+	
+	@Autowired
+	MemberRepository memberRepository;
+	
+	@Autowired
+	MeterRegistry meterRegistry;
+	
+	@BeforeEach
+	public void before() {
+		transactionTemplate.executeWithoutResult(status -> {
+			Team teamA = new Team("teamA");
+			Team teamB = new Team("teamB");
+			em.persist(teamA);
+			em.persist(teamB);
+			for(int i = 0; i < 10; i++) {
+				em.persist(new Member("member" + i, i * 10, i % 2 == 0 ? teamA : teamB));
+			}
+		});
+	}
+	
+	@AfterEach
+	public void after() {
+		transactionTemplate.executeWithoutResult(status -> {
+			queryFactory.delete(member).execute();
+			queryFactory.delete(team).execute();
+		});
+	}
+	
+	@Test
+	public void sameAsSync() {
+		MemberSearchCondition condition = new MemberSearchCondition();
+		condition.setTeamName("teamA");
+		PageRequest pageRequest = PageRequest.of(1, 2);
+		
+		Page<MemberTeamDto> complex = memberRepository.searchPageComplexAsync(condition, pageRequest).join();
+		Page<MemberTeamDto> deferredJoin = memberRepository.searchPageDeferredJoinAsync(condition, pageRequest).join();
+		
+		Assertions.assertThat(complex.getTotalElements()).isEqualTo(5);
+		Assertions.assertThat(complex.getContent()).containsExactlyInAnyOrderElementsOf(
+				memberRepository.searchPageComplex(condition, pageRequest).getContent());
+		Assertions.assertThat(deferredJoin.getTotalElements()).isEqualTo(5);
+		Assertions.assertThat(deferredJoin.getContent()).extracting("username").containsExactly("member4", "member6");
+	}
+	
+	@Test
+	public void executorMetrics() throws InterruptedException {
+		Timer timer = meterRegistry.get("executor").tag("name", SearchExecutorConfig.MEMBER_PAGE_EXECUTOR).timer();
+		long before = timer.count();
+		
+		memberRepository.searchPageComplexAsync(new MemberSearchCondition(), PageRequest.of(0, 3)).join();
+		
+		// content, count 각각 한 번씩
+		// 실행 시간은 작업이 끝난 뒤(future 완료 이후) 기록되므로 잠깐 기다린다
+		for(int i = 0; i < 100 && timer.count() < before + 2; i++) {
+			Thread.sleep(10);
+		}
+		Assertions.assertThat(timer.count()).isEqualTo(before + 2);
+	}
+	
+}
@@ -0,0 +1,134 @@
+package study.querydsl.repository;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+
+import org.assertj.core.api.Assertions;
+import org.hibernate.Hibernate;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+// StatelessSession 은 자체 트랜잭션에서 커밋하므로 데이터를 커밋해두고 테스트한다
+@SpringBootTest
+public class MemberBulkProcessorTest {
+	
+	@Autowired
+	EntityManager em;
+	
+	@Autowired
+	JPAQueryFactory queryFactory;
+	
+	@Autowired
+	TransactionTemplate transactionTemplate;
+	
+	@Autowired
+	MemberBulkProcessor bulkProcessor;
+	
+	@Autowired
+	TeamJpaRepository teamJpaRepository;
+	
+	@BeforeEach
+	public void before() {
+		transactionTemplate.executeWithoutResult(status -> {
+			Team teamA = new Team("teamA");
+			Team teamB = new Team("teamB");
+			em.persist(teamA);
+			em.persist(teamB);
+			for(int i = 0; i < 10; i++) {
+				em.persist(new Member("member" + i, i * 10, i % 2 == 0 ? teamA : teamB));
+			}
+			em.persist(new Member("member10", 100));
+		});
+	}
+	
+	@AfterEach
+	public void after() {
+		transactionTemplate.executeWithoutResult(status -> {
+			queryFactory.delete(member).execute();
+			queryFactory.delete(team).execute();
+		});
+	}
+	
+	@Test
+	public void forEach() {
+		List<Member> result = new ArrayList<>();
+		
+		long count = bulkProcessor.forEach(team.name.eq("teamA").and(member.age.goe(40)), result::add);
+		
+		Assertions.assertThat(count).isEqualTo(3);
+		Assertions.assertThat(result).extracting("username").containsExactly("member4", "member6", "member8");
+		// team 은 fetch join 으로 채워지고 team.members 는 채워지지 않는다
+		Assertions.assertThat(result).extracting(m -> m.getTeam().getName()).containsOnly("teamA");
+		Assertions.assertThat(result).allMatch(m -> !Hibernate.isInitialized(m.getTeam().getMembers()));
+	}
+	
+	@Test
+	public void forEachAll() {
+		List<Member> result = new ArrayList<>();
+		
+		long count = bulkProcessor.forEach(null, result::add);
+		
+		Assertions.assertThat(count).isEqualTo(11);
+		Assertions.assertThat(result).extracting(Member::getId).isSorted();
+		Assertions.assertThat(result.get(10).getTeam()).isNull();
+	}
+	
+	@Test
+	public void update() {
+		long count = bulkProcessor.update(member.age.lt(30), m -> m.setUsername(m.getUsername() + "_junior"));
+		
+		Assertions.assertThat(count).isEqualTo(3);
+		Assertions.assertThat(queryFactory.select(member.username).from(member).where(member.username.endsWith("_junior")).fetch())
+				.containsExactlyInAnyOrder("member0_junior", "member1_junior", "member2_junior");
+		// 바꾸지 않은 컬럼(team)은 그대로
+		Assertions.assertThat(queryFactory.selectFrom(member).where(member.team.name.eq("teamA")).fetch()).hasSize(5);
+	}
+	
+	@Test
+	public void rollbackOnException() {
+		Assertions.assertThatThrownBy(() -> bulkProcessor.update(null, m -> {
+			if(m.getUsername().equals("member5")) {
+				throw new IllegalStateException("fail");
+			}
+			m.setAge(-1);
+		})).isInstanceOf(IllegalStateException.class);
+		
+		Assertions.assertThat(queryFactory.selectFrom(member).where(member.age.eq(-1)).fetch()).isEmpty();
+	}
+	
+	@Test
+	public void insert() {
+		Team teamA = queryFactory.selectFrom(team).where(team.name.eq("teamA")).fetchOne();
+		List<Member> members = new ArrayList<>();
+		for(int i = 0; i < 100; i++) {
+			Member each = new Member("bulk" + i, 20);
+			each.setTeam(teamA);
+			members.add(each);
+		}
+		
+		long count = bulkProcessor.insert(members);
+		
+		Assertions.assertThat(count).isEqualTo(100);
+		Assertions.assertThat(members).allMatch(m -> m.getId() != null);
+		Assertions.assertThat(queryFactory.selectFrom(member).where(member.username.startsWith("bulk"), member.team.name.eq("teamA")).fetch())
+				.hasSize(100);
+		// StatelessSession 은 이벤트가 없으므로 rebuild 로 통계를 다시 계산한다
+		Assertions.assertThat(teamJpaRepository.findAllStatistics()).filteredOn("teamName", "teamA")
+				.extracting("memberCount").containsExactly(105L);
+	}
+	
+}
@@ -0,0 +1,58 @@
+package study.querydsl.repository;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import study.querydsl.dto.MemberSearchCondition;
+
+public class MemberCountCacheTest {
+	
+	@Test
+	public void reuseCountForSameCondition() {
+		MemberCountCache countCache = new MemberCountCache(Duration.ofMinutes(1), 10);
+		AtomicInteger calls = new AtomicInteger();
+		
+		MemberSearchCondition condition = new MemberSearchCondition();
+		condition.setTeamName("teamA");
+		
+		Assertions.assertThat(countCache.get(condition, () -> { calls.incrementAndGet(); return 2; })).isEqualTo(2);
+		Assertions.assertThat(countCache.get(condition, () -> { calls.incrementAndGet(); return 3; })).isEqualTo(2);
+		Assertions.assertThat(calls.get()).isEqualTo(1);
+		
+		// 조건이 바뀌면 다시 count
+		condition.setTeamName("teamB");
+		Assertions.assertThat(countCache.get(condition, () -> { calls.incrementAndGet(); return 5; })).isEqualTo(5);
+		Assertions.assertThat(calls.get()).isEqualTo(2);
+	}
+	
+	@Test
+	public void differentUsernameConditions() {
+		MemberCountCache countCache = new MemberCountCache(Duration.ofMinutes(1), 10);
+		
+		MemberSearchCondition prefix = new MemberSearchCondition();
+		prefix.setUsernamePrefix("member1");
+		MemberSearchCondition text = new MemberSearchCondition();
+		text.setUsernameText("member1");
+		
+		Assertions.assertThat(countCache.get(prefix, () -> 3)).isEqualTo(3);
+		Assertions.assertThat(countCache.get(text, () -> 1)).isEqualTo(1);
+		Assertions.assertThat(countCache.get(new MemberSearchCondition(), () -> 1000)).isEqualTo(1000);
+		Assertions.assertThat(countCache.get(prefix, () -> -1)).isEqualTo(3);
+	}
+	
+	@Test
+	public void disabledWhenTtlIsZero() {
+		MemberCountCache countCache = new MemberCountCache(Duration.ZERO, 10);
+		AtomicInteger calls = new AtomicInteger();
+		MemberSearchCondition condition = new MemberSearchCondition();
+		
+		countCache.get(condition, () -> { calls.incrementAndGet(); return 1; });
+		countCache.get(condition, () -> { calls.incrementAndGet(); return 1; });
+		
+		Assertions.assertThat(calls.get()).isEqualTo(2);
+	}
+	
+}
@@ -1,10 +1,13 @@
 package study.querydsl.repository;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import javax.persistence.EntityManager;
 
 import org.assertj.core.api.Assertions;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -55,4 +58,77 @@ public class MemberJpaRepositoryTest {
 		Assertions.assertThat(result).extracting("username").containsExactly("member4");
 	}
 	
+	@Test
+	public void searchTemplateTest() {
+		Team teamA = new Team("teamA");
+		Team teamB = new Team("teamB");
+		em.persist(teamA);
+		em.persist(teamB);
+		
+		Member member1 = new Member("member1", 10, teamA);
+		Member member2 = new Member("member2", 20, teamA);
+		
+		Member member3 = new Member("member3", 30, teamB);
+		Member member4 = new Member("member4", 40, teamB);
+		em.persist(member1);
+		em.persist(member2);
+		em.persist(member3);
+		em.persist(member4);
+		
+		MemberSearchCondition condition = new MemberSearchCondition();
+		condition.setAgeGoe(35);
+		condition.setAgeLoe(40);
+		condition.setTeamName("teamB");
+		
+		List<MemberTeamDto> result = memberJpaRepository.search(condition);
+		Assertions.assertThat(result).extracting("username").containsExactly("member4");
+		
+		// 같은 모양(teamName + ageGoe + ageLoe)이면 값이 달라도 같은 템플릿 사용
+		condition.setAgeGoe(10);
+		condition.setAgeLoe(30);
+		condition.setTeamName("teamA");
+		Assertions.assertThat(memberJpaRepository.search(condition)).extracting("username").containsExactly("member1", "member2");
+		
+		// 조건이 없으면 전체 조회
+		Assertions.assertThat(memberJpaRepository.search(new MemberSearchCondition())).hasSize(4);
+	}
+	
+	// 같은 모양의 조건은 값이 달라도 같은 JPQL -> 두 번째는 쿼리 플랜 캐시 미스가 없다
+	@Test
+	public void sharePlan() {
+		Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+		MemberSearchCondition condition = new MemberSearchCondition();
+		condition.setAgeLoe(40);
+		condition.setTeamName("teamB");
+		condition.setAgeGoe(35);
+		
+		memberJpaRepository.search(condition);
+		long miss = statistics.getQueryPlanCacheMissCount();
+		long hit = statistics.getQueryPlanCacheHitCount();
+		
+		condition.setAgeLoe(20);
+		condition.setTeamName("teamA");
+		condition.setAgeGoe(10);
+		memberJpaRepository.search(condition);
+		
+		Assertions.assertThat(statistics.getQueryPlanCacheMissCount()).isEqualTo(miss);
+		Assertions.assertThat(statistics.getQueryPlanCacheHitCount()).isGreaterThan(hit);
+	}
+	
+	@Test
+	public void saveAllTest() {
+		Team teamA = new Team("teamA");
+		em.persist(teamA);
+		
+		List<Member> members = new ArrayList<>();
+		for(int i = 0; i < 2500; i++) {
+			members.add(new Member("member" + i, i % 100, teamA));
+		}
+		memberJpaRepository.saveAll(members);
+		
+		MemberSearchCondition condition = new MemberSearchCondition();
+		condition.setTeamName("teamA");
+		Assertions.assertThat(memberJpaRepository.search(condition)).hasSize(2500);
+	}
+	
 }
@@ -0,0 +1,129 @@
+package study.querydsl.repository;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import javax.persistence.EntityManager;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+// 파티션마다 다른 커넥션에서 조회하므로 데이터를 커밋해두고 테스트한다
+@SpringBootTest(properties = "member.search.parallel.partitions=3")
+public class MemberParallelSearchTest {
+	
+	@Autowired
+	EntityManager em;
+	
+	@Autowired
+	JPAQueryFactory queryFactory;
+	
+	@Autowired
+	TransactionTemplate transactionTemplate;
+	
+	@Autowired
+	MemberRepository memberRepository;
+	
+	@BeforeEach
+	public void before() {
+		transactionTemplate.executeWithoutResult(status -> {
+			Team teamA = new Team("teamA");
+			Team teamB = new Team("teamB");
+			em.persist(teamA);
+			em.persist(teamB);
+			for(int i = 0; i < 10; i++) {
+				em.persist(new Member("member" + i, i * 10, i % 2 == 0 ? teamA : teamB));
+			}
+			em.persist(new Member("member10", 100));
+		});
+	}
+	
+	@AfterEach
+	public void after() {
+		transactionTemplate.executeWithoutResult(status -> {
+			queryFactory.delete(member).execute();
+			queryFactory.delete(team).execute();
+		});
+	}
+	
+	@Test
+	public void sameAsSearch() {
+		MemberSearchCondition empty = new MemberSearchCondition();
+		MemberSearchCondition teamAgeRange = new MemberSearchCondition();
+		teamAgeRange.setTeamName("teamB");
+		teamAgeRange.setAgeGoe(20);
+		teamAgeRange.setAgeLoe(70);
+		
+		for(MemberSearchCondition condition : Arrays.asList(empty, teamAgeRange)) {
+			List<MemberTeamDto> result = memberRepository.searchParallel(condition, true);
+			
+			Assertions.assertThat(memberIds(result)).isSorted();
+			Assertions.assertThat(memberIds(result)).containsExactlyElementsOf(memberIds(sortById(memberRepository.search(condition))));
+		}
+	}
+	
+	@Test
+	public void unordered() {
+		MemberSearchCondition condition = new MemberSearchCondition();
+		condition.setAgeGoe(50);
+		
+		List<MemberTeamDto> result = memberRepository.searchParallel(condition, false);
+		
+		Assertions.assertThat(result).extracting("username")
+				.containsExactlyInAnyOrder("member5", "member6", "member7", "member8", "member9", "member10");
+	}
+	
+	// 조건에 맞는 member 가 없으면 파티션을 만들지 않는다
+	@Test
+	public void noMatches() {
+		MemberSearchCondition condition = new MemberSearchCondition();
+		condition.setTeamName("teamA");
+		condition.setAgeGoe(90);
+		
+		Assertions.assertThat(memberRepository.searchParallel(condition, true)).isEmpty();
+	}
+	
+	@Test
+	public void partitionsMustBePositive() {
+		Assertions.assertThatThrownBy(() -> new MemberRepositoryImpl(null, true, null, null, 1000, null, null, 0, null, null, null, null, null))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining("member.search.parallel.partitions");
+	}
+	
+	@Test
+	public void noMembers() {
+		after();
+		
+		Assertions.assertThat(memberRepository.searchParallel(new MemberSearchCondition(), true)).isEmpty();
+	}
+	
+	private List<MemberTeamDto> sortById(List<MemberTeamDto> dtos) {
+		return dtos.stream()
+				.sorted(Comparator.comparing(MemberTeamDto::getMemberId))
+				.collect(Collectors.toList());
+	}
+	
+	private List<Long> memberIds(List<MemberTeamDto> dtos) {
+		return dtos.stream()
+				.map(MemberTeamDto::getMemberId)
+				.collect(Collectors.toList());
+	}
+	
+}
@@ -1,15 +1,19 @@
 package study.querydsl.repository;
 
 import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import javax.persistence.EntityManager;
 
 import org.assertj.core.api.Assertions;
+import org.hibernate.Session;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.transaction.annotation.Transactional;
 
 import study.querydsl.dto.MemberSearchCondition;
@@ -73,6 +77,37 @@ public class MemberRepositoryTest {
 		Assertions.assertThat(result).extracting("username").containsExactly("member4");
 	}
 	
+	@Test
+	public void streamTest() {
+		Team teamA = new Team("teamA");
+		Team teamB = new Team("teamB");
+		em.persist(teamA);
+		em.persist(teamB);
+		
+		Member member1 = new Member("member1", 10, teamA);
+		Member member2 = new Member("member2", 20, teamA);
+		
+		Member member3 = new Member("member3", 30, teamB);
+		Member member4 = new Member("member4", 40, teamB);
+		em.persist(member1);
+		em.persist(member2);
+		em.persist(member3);
+		em.persist(member4);
+		em.flush();
+		em.clear();
+		
+		MemberSearchCondition condition = new MemberSearchCondition();
+		condition.setTeamName("teamB");
+		
+		try(Stream<MemberTeamDto> stream = memberRepository.stream(condition)) {
+			List<MemberTeamDto> result = stream.collect(Collectors.toList());
+			Assertions.assertThat(result).extracting("username").containsExactlyInAnyOrder("member3", "member4");
+		}
+		
+		// dto 조회라 엔티티가 영속성 컨텍스트에 올라오지 않는다
+		Assertions.assertThat(em.unwrap(Session.class).getStatistics().getEntityCount()).isZero();
+	}
+	
 	@Test
 	public void searchPageSimpleTest() {
 		Team teamA = new Team("teamA");
@@ -135,6 +170,103 @@ public class MemberRepositoryTest {
 		
 		Assertions.assertThat(result.getSize()).isEqualTo(3);
 		Assertions.assertThat(result.getContent()).extracting("username").containsExactly("member1", "member2", "member3");
+		Assertions.assertThat(result.getTotalElements()).isEqualTo(4);
+		
+		// 마지막 페이지는 count 쿼리 없이 offset + content 크기로 전체 개수를 구한다
+		Page<MemberTeamDto> last = memberRepository.searchPageComplex(condition, PageRequest.of(1, 3));
+		Assertions.assertThat(last.getContent()).extracting("username").containsExactly("member4");
+		Assertions.assertThat(last.getTotalElements()).isEqualTo(4);
+	}
+	
+	@Test
+	public void searchPageWindowTest() {
+		Team teamA = new Team("teamA");
+		Team teamB = new Team("teamB");
+		em.persist(teamA);
+		em.persist(teamB);
+		
+		Member member1 = new Member("member1", 10, teamA);
+		Member member2 = new Member("member2", 20, teamA);
+		
+		Member member3 = new Member("member3", 30, teamB);
+		Member member4 = new Member("member4", 40, teamB);
+		em.persist(member1);
+		em.persist(member2);
+		em.persist(member3);
+		em.persist(member4);
+		
+		MemberSearchCondition condition = new MemberSearchCondition();
+		PageRequest pageRequest = PageRequest.of(0, 3);
+		
+		Page<MemberTeamDto> result = memberRepository.searchPageWindow(condition, pageRequest);
+		
+		Assertions.assertThat(result.getTotalElements()).isEqualTo(4);
+		Assertions.assertThat(result.getContent()).extracting("username").containsExactly("member1", "member2", "member3");
+		
+		// 전체 개수를 넘어간 페이지는 count 쿼리로 전체 개수를 구한다
+		Page<MemberTeamDto> empty = memberRepository.searchPageWindow(condition, PageRequest.of(5, 3));
+		Assertions.assertThat(empty.getContent()).isEmpty();
+		Assertions.assertThat(empty.getTotalElements()).isEqualTo(4);
+	}
+	
+	@Test
+	public void searchPageDeferredJoinTest() {
+		Team teamA = new Team("teamA");
+		Team teamB = new Team("teamB");
+		em.persist(teamA);
+		em.persist(teamB);
+		
+		Member member1 = new Member("member1", 10, teamA);
+		Member member2 = new Member("member2", 20, teamA);
+		
+		Member member3 = new Member("member3", 30, teamB);
+		Member member4 = new Member("member4", 40, teamB);
+		em.persist(member1);
+		em.persist(member2);
+		em.persist(member3);
+		em.persist(member4);
+		
+		MemberSearchCondition condition = new MemberSearchCondition();
+		condition.setAgeGoe(20);
+		
+		Page<MemberTeamDto> result = memberRepository.searchPageDeferredJoin(condition, PageRequest.of(1, 2));
+		
+		Assertions.assertThat(result.getContent()).extracting("username").containsExactly("member4");
+		Assertions.assertThat(result.getContent()).extracting("teamName").containsExactly("teamB");
+		Assertions.assertThat(result.getTotalElements()).isEqualTo(3);
+		
+		condition.setTeamName("teamA");
+		Page<MemberTeamDto> teamAResult = memberRepository.searchPageDeferredJoin(condition, PageRequest.of(0, 2));
+		Assertions.assertThat(teamAResult.getContent()).extracting("username").containsExactly("member2");
+	}
+	
+	@Test
+	public void searchSliceTest() {
+		Team teamA = new Team("teamA");
+		Team teamB = new Team("teamB");
+		em.persist(teamA);
+		em.persist(teamB);
+		
+		Member member1 = new Member("member1", 10, teamA);
+		Member member2 = new Member("member2", 20, teamA);
+		
+		Member member3 = new Member("member3", 30, teamB);
+		Member member4 = new Member("member4", 40, teamB);
+		em.persist(member1);
+		em.persist(member2);
+		em.persist(member3);
+		em.persist(member4);
+		
+		MemberSearchCondition condition = new MemberSearchCondition();
+		
+		Slice<MemberTeamDto> first = memberRepository.searchSlice(condition, null, 3);
+		Assertions.assertThat(first.getContent()).extracting("username").containsExactly("member1", "member2", "member3");
+		Assertions.assertThat(first.hasNext()).isTrue();
+		
+		Long cursor = first.getContent().get(first.getContent().size() - 1).getMemberId();
+		Slice<MemberTeamDto> second = memberRepository.searchSlice(condition, cursor, 3);
+		Assertions.assertThat(second.getContent()).extracting("username").containsExactly("member4");
+		Assertions.assertThat(second.hasNext()).isFalse();
 	}
 	
 	@Test
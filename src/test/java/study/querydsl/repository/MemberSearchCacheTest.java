@@ -0,0 +1,127 @@
+package study.querydsl.repository;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+import java.util.List;
+
+import javax.persistence.EntityManager;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+// 캐시는 쓰기 트랜잭션 밖에서만 사용되므로 테스트 전체를 트랜잭션으로 묶지 않는다
+@SpringBootTest(properties = "member.search.result-cache.enabled=true")
+public class MemberSearchCacheTest {
+	
+	@Autowired
+	EntityManager em;
+	
+	@Autowired
+	JPAQueryFactory queryFactory;
+	
+	@Autowired
+	TransactionTemplate transactionTemplate;
+	
+	@Autowired
+	MemberRepository memberRepository;
+	
+	@BeforeEach
+	public void before() {
+		transactionTemplate.executeWithoutResult(status -> {
+			Team teamA = new Team("teamA");
+			em.persist(teamA);
+			em.persist(new Member("member1", 10, teamA));
+			em.persist(new Member("member2", 20, teamA));
+		});
+	}
+	
+	@AfterEach
+	public void after() {
+		transactionTemplate.executeWithoutResult(status -> {
+			queryFactory.delete(member).execute();
+			queryFactory.delete(team).execute();
+		});
+	}
+	
+	@Test
+	public void cacheHit() {
+		MemberSearchCondition condition = new MemberSearchCondition();
+		condition.setTeamName("teamA");
+		
+		List<MemberTeamDto> first = memberRepository.search(condition);
+		
+		// 빈 문자열 조건은 조건 없음과 같은 key
+		MemberSearchCondition same = new MemberSearchCondition();
+		same.setTeamName("teamA");
+		same.setUsername("");
+		
+		Assertions.assertThat(memberRepository.search(same)).isSameAs(first);
+	}
+	
+	// usernamePrefix / usernameText 만 다른 조건은 다른 key
+	@Test
+	public void differentUsernameConditions() {
+		MemberSearchCondition prefix = new MemberSearchCondition();
+		prefix.setUsernamePrefix("member1");
+		Assertions.assertThat(memberRepository.search(prefix)).extracting("username").containsExactly("member1");
+		
+		MemberSearchCondition text = new MemberSearchCondition();
+		text.setUsernameText("member2");
+		Assertions.assertThat(memberRepository.search(text)).extracting("username").containsExactly("member2");
+		
+		Assertions.assertThat(memberRepository.search(new MemberSearchCondition())).hasSize(2);
+	}
+	
+	@Test
+	public void invalidateOnSave() {
+		MemberSearchCondition condition = new MemberSearchCondition();
+		Assertions.assertThat(memberRepository.search(condition)).hasSize(2);
+		
+		memberRepository.save(new Member("member3", 30));
+		
+		Assertions.assertThat(memberRepository.search(condition)).hasSize(3);
+	}
+	
+	@Test
+	public void invalidateOnChangeTeam() {
+		MemberSearchCondition condition = new MemberSearchCondition();
+		condition.setTeamName("teamB");
+		Assertions.assertThat(memberRepository.search(condition)).isEmpty();
+		
+		transactionTemplate.executeWithoutResult(status -> {
+			Team teamB = new Team("teamB");
+			em.persist(teamB);
+			memberRepository.findByUsername("member1").get(0).changeTeam(teamB);
+		});
+		
+		Assertions.assertThat(memberRepository.search(condition)).extracting("username").containsExactly("member1");
+	}
+	
+	@Test
+	public void invalidateOnBulkUpdate() {
+		MemberSearchCondition condition = new MemberSearchCondition();
+		condition.setAgeGoe(20);
+		Assertions.assertThat(memberRepository.search(condition)).hasSize(1);
+		
+		transactionTemplate.executeWithoutResult(status -> queryFactory
+				.update(member)
+				.set(member.age, member.age.add(10))
+				.execute());
+		
+		Assertions.assertThat(memberRepository.search(condition)).hasSize(2);
+	}
+	
+}
@@ -0,0 +1,40 @@
+package study.querydsl.repository;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import study.querydsl.dto.MemberSearchCondition;
+
+public class MemberSearchKeyTest {
+	
+	// 필드 하나만 다른 조건은 key 도 달라야 한다 (MemberSearchCondition 에 추가된 필드를 빠뜨리지 않았는지)
+	@Test
+	public void everyFieldIsPartOfKey() throws Exception {
+		MemberSearchKey empty = MemberSearchKey.of(new MemberSearchCondition());
+		for(Field field : MemberSearchCondition.class.getDeclaredFields()) {
+			if(Modifier.isStatic(field.getModifiers())) {
+				continue;
+			}
+			MemberSearchCondition condition = new MemberSearchCondition();
+			field.setAccessible(true);
+			field.set(condition, field.getType() == String.class ? "value" : (Object) 1);
+			
+			Assertions.assertThat(MemberSearchKey.of(condition)).as(field.getName()).isNotEqualTo(empty);
+			Assertions.assertThat(MemberSearchKey.of(condition)).as(field.getName()).isEqualTo(MemberSearchKey.of(condition));
+		}
+	}
+	
+	@Test
+	public void blankIsSameAsNull() {
+		MemberSearchCondition blank = new MemberSearchCondition();
+		blank.setUsernamePrefix("");
+		blank.setUsernameText(" ");
+		
+		Assertions.assertThat(MemberSearchKey.of(blank)).isEqualTo(MemberSearchKey.of(new MemberSearchCondition()));
+		Assertions.assertThat(MemberSearchKey.of(blank).hashCode()).isEqualTo(MemberSearchKey.of(new MemberSearchCondition()).hashCode());
+	}
+	
+}
@@ -0,0 +1,136 @@
+package study.querydsl.repository;
+
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import javax.persistence.EntityManager;
+import javax.sql.DataSource;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.querydsl.sql.ColumnMetadata;
+import com.querydsl.sql.RelationalPathBase;
+import com.querydsl.sql.SQLQueryFactory;
+
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.sql.SMember;
+import study.querydsl.sql.STeam;
+
+@SpringBootTest
+@Transactional
+public class MemberSqlRepositoryTest {
+	
+	@Autowired
+	EntityManager em;
+	
+	@Autowired
+	DataSource dataSource;
+	
+	@Autowired
+	SQLQueryFactory sqlQueryFactory;
+	
+	@Autowired
+	MemberRepository memberRepository;
+	
+	@Autowired
+	MemberSqlRepository memberSqlRepository;
+	
+	@Test
+	public void sameAsSearch() {
+		saveMembers();
+		MemberSearchCondition empty = new MemberSearchCondition();
+		MemberSearchCondition username = new MemberSearchCondition();
+		username.setUsername("member10");
+		MemberSearchCondition teamAgeRange = new MemberSearchCondition();
+		teamAgeRange.setTeamName("teamB");
+		teamAgeRange.setAgeGoe(20);
+		teamAgeRange.setAgeLoe(70);
+		MemberSearchCondition usernamePrefix = new MemberSearchCondition();
+		usernamePrefix.setUsernamePrefix("member1");
+		MemberSearchCondition usernameText = new MemberSearchCondition();
+		usernameText.setUsernameText("member3");
+		
+		for(MemberSearchCondition condition : Arrays.asList(empty, username, teamAgeRange, usernamePrefix, usernameText)) {
+			Assertions.assertThat(sortById(memberSqlRepository.search(condition)))
+					.isNotEmpty()
+					.isEqualTo(sortById(memberRepository.search(condition)));
+		}
+	}
+	
+	@Test
+	public void memberWithoutTeam() {
+		saveMembers();
+		MemberSearchCondition condition = new MemberSearchCondition();
+		condition.setAgeGoe(100);
+		
+		List<MemberTeamDto> result = memberSqlRepository.search(condition);
+		
+		Assertions.assertThat(result).extracting("username").containsExactly("member10");
+		Assertions.assertThat(result.get(0).getTeamId()).isNull();
+		Assertions.assertThat(result.get(0).getTeamName()).isNull();
+	}
+	
+	// 커넥션을 돌려줄 트랜잭션이 없으면 사용할 수 없다
+	@Test
+	@Transactional(propagation = Propagation.NOT_SUPPORTED)
+	public void outsideTransaction() {
+		Assertions.assertThatThrownBy(() -> sqlQueryFactory.select(SMember.member.username).from(SMember.member).fetch())
+				.isInstanceOf(IllegalStateException.class);
+	}
+	
+	// S* 타입은 스키마에서 생성한 코드이므로 엔티티 매핑이 바뀌면 다시 생성해야 한다
+	@Test
+	public void queryTypesMatchSchema() throws Exception {
+		for(RelationalPathBase<?> path : Arrays.asList(SMember.member, STeam.team)) {
+			Map<String, Integer> columns = new HashMap<>();
+			new JdbcTemplate(dataSource).execute((java.sql.Connection connection) -> {
+				DatabaseMetaData metaData = connection.getMetaData();
+				try(ResultSet rs = metaData.getColumns(null, path.getSchemaName(), path.getTableName(), null)) {
+					while(rs.next()) {
+						columns.put(rs.getString("COLUMN_NAME"), rs.getInt("DATA_TYPE"));
+					}
+				}
+				return null;
+			});
+			
+			Map<String, Integer> mapped = path.getColumns().stream()
+					.map(path::getMetadata)
+					.collect(Collectors.toMap(ColumnMetadata::getName, ColumnMetadata::getJdbcType));
+			Assertions.assertThat(mapped).as(path.getTableName()).isEqualTo(columns);
+		}
+	}
+	
+	private void saveMembers() {
+		Team teamA = new Team("teamA");
+		Team teamB = new Team("teamB");
+		em.persist(teamA);
+		em.persist(teamB);
+		for(int i = 0; i < 10; i++) {
+			em.persist(new Member("member" + i, i * 10, i % 2 == 0 ? teamA : teamB));
+		}
+		em.persist(new Member("member10", 100));
+		em.flush(); // querydsl-sql 은 auto flush 가 없다
+	}
+	
+	private List<MemberTeamDto> sortById(List<MemberTeamDto> dtos) {
+		return dtos.stream()
+				.sorted(Comparator.comparing(MemberTeamDto::getMemberId))
+				.collect(Collectors.toList());
+	}
+	
+}
@@ -0,0 +1,217 @@
+package study.querydsl.repository;
+
+import static study.querydsl.entity.QMember.member;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.persistence.EntityManager;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.monitor.SqlStatementCounter;
+
+@SpringBootTest(properties = "member.search.full-text.max-results=2")
+@Transactional
+public class MemberUsernameSearchTest {
+	
+	@Autowired
+	EntityManager em;
+	
+	@Autowired
+	JPAQueryFactory queryFactory;
+	
+	@Autowired
+	MemberRepository memberRepository;
+	
+	@Autowired
+	MemberJpaRepository memberJpaRepository;
+	
+	@Autowired
+	SqlStatementCounter counter;
+	
+	@BeforeEach
+	public void before() {
+		Team teamA = new Team("teamA");
+		em.persist(teamA);
+		em.persist(new Member("kim minsu", 10, teamA));
+		em.persist(new Member("kim jisoo", 20, teamA));
+		em.persist(new Member("kimchi", 30));
+		em.persist(new Member("lee minsu", 40));
+		em.persist(new Member("ki", 50));
+	}
+	
+	@Test
+	public void usernamePrefix() {
+		Assertions.assertThat(usernames(search("kim", null))).containsExactlyInAnyOrder("kim minsu", "kim jisoo", "kimchi");
+		Assertions.assertThat(usernames(search("kim ", null))).containsExactlyInAnyOrder("kim minsu", "kim jisoo");
+		Assertions.assertThat(usernames(search("x", null))).isEmpty();
+	}
+	
+	@Test
+	public void prefixUpperBound() {
+		Assertions.assertThat(PrefixRange.upperBound("kim")).isEqualTo("kin");
+		Assertions.assertThat(PrefixRange.upperBound("k" + Character.MAX_VALUE)).isEqualTo("l");
+		Assertions.assertThat(PrefixRange.upperBound(String.valueOf(Character.MAX_VALUE))).isNull();
+	}
+	
+	// 범위 + like, like 의 와일드카드 문자는 그대로 비교
+	@Test
+	public void prefixRangeKeepsLike() {
+		Assertions.assertThat(PrefixRange.of(member.username, "kim").toString())
+				.isEqualTo("member1.username >= kim && member1.username < kin && startsWith(member1.username,kim)");
+		Assertions.assertThat(usernames(search("ki_", null))).isEmpty();
+		Assertions.assertThat(usernames(search("k%", null))).isEmpty();
+	}
+	
+	// 단어 단위로 일치 (kimchi 는 kim 으로 찾지 않는다), 대소문자 무시, 여러 단어는 모두 포함
+	@Test
+	public void usernameText() {
+		Assertions.assertThat(usernames(search(null, "minsu"))).containsExactlyInAnyOrder("kim minsu", "lee minsu");
+		Assertions.assertThat(usernames(search(null, "KIM"))).containsExactlyInAnyOrder("kim minsu", "kim jisoo");
+		Assertions.assertThat(usernames(search(null, "kim minsu"))).containsExactly("kim minsu");
+		Assertions.assertThat(usernames(search(null, "nobody"))).isEmpty();
+	}
+	
+	@Test
+	public void usernameTextWithOtherConditions() {
+		MemberSearchCondition condition = new MemberSearchCondition();
+		condition.setUsernameText("minsu");
+		condition.setTeamName("teamA");
+		
+		Assertions.assertThat(usernames(memberRepository.search(condition))).containsExactly("kim minsu");
+		
+		condition.setTeamName(null);
+		condition.setAgeGoe(30);
+		Page<MemberTeamDto> page = memberRepository.searchPageComplex(condition, PageRequest.of(0, 10));
+		Assertions.assertThat(usernames(page.getContent())).containsExactly("lee minsu");
+		Assertions.assertThat(page.getTotalElements()).isEqualTo(1);
+	}
+	
+	// MemberJpaRepository.search (조건 모양별 템플릿) 도 같은 조건을 적용
+	@Test
+	public void memberJpaRepositorySearches() {
+		MemberSearchCondition text = new MemberSearchCondition();
+		text.setUsernameText("minsu");
+		MemberSearchCondition prefix = new MemberSearchCondition();
+		prefix.setUsernamePrefix("kim ");
+		MemberSearchCondition wildcard = new MemberSearchCondition();
+		wildcard.setUsernamePrefix("ki_");
+		MemberSearchCondition unbounded = new MemberSearchCondition();
+		unbounded.setUsernamePrefix(String.valueOf(Character.MAX_VALUE));
+		MemberSearchCondition both = new MemberSearchCondition();
+		both.setUsernamePrefix("lee");
+		both.setUsernameText("minsu");
+		
+		for(MemberSearchCondition condition : Arrays.asList(text, prefix, wildcard, unbounded, both)) {
+			// 페이징 조회는 querydsl 식 트리로 만든 쿼리 -> 템플릿과 결과 비교
+			List<String> expected = usernames(memberRepository.searchPageComplex(condition, PageRequest.of(0, 10)).getContent());
+			Assertions.assertThat(usernames(memberJpaRepository.search(condition))).containsExactlyInAnyOrderElementsOf(expected);
+		}
+		Assertions.assertThat(usernames(memberJpaRepository.search(text))).containsExactlyInAnyOrder("kim minsu", "lee minsu");
+		Assertions.assertThat(usernames(memberJpaRepository.search(prefix))).containsExactlyInAnyOrder("kim minsu", "kim jisoo");
+		Assertions.assertThat(memberJpaRepository.search(wildcard)).isEmpty();
+		Assertions.assertThat(usernames(memberJpaRepository.search(both))).containsExactly("lee minsu");
+		
+		text.setUsernameText("nobody");
+		Assertions.assertThat(memberJpaRepository.search(text)).isEmpty();
+	}
+	
+	// 전문 검색은 호출마다 한 번 (content / count 쿼리가 같은 id 목록을 사용)
+	@Test
+	public void usernameTextLookupOncePerPage() {
+		MemberSearchCondition condition = new MemberSearchCondition();
+		condition.setUsernameText("minsu");
+		em.flush();
+		
+		try(SqlStatementCounter.Scope scope = counter.start()) {
+			Page<MemberTeamDto> page = memberRepository.searchPageComplex(condition, PageRequest.of(0, 1));
+			
+			Assertions.assertThat(page.getTotalElements()).isEqualTo(2);
+			Assertions.assertThat(scope.getCount()).isEqualTo(3); // 전문 검색 + content + count
+		}
+	}
+	
+	// max-results 보다 많이 일치해도 페이징 / slice / stream 은 쿼리 안의 전문 검색 서브쿼리로 조회
+	// 결과 개수 제한이 없는 search 만 거부 (repository 예외 변환 -> InvalidDataAccessApiUsageException)
+	@Test
+	public void usernameTextTooManyMatches() {
+		em.persist(new Member("kim dahye", 60));
+		em.flush();
+		MemberSearchCondition condition = new MemberSearchCondition();
+		condition.setUsernameText("kim");
+		
+		Page<MemberTeamDto> page = memberRepository.searchPageComplex(condition, PageRequest.of(0, 2));
+		Assertions.assertThat(page.getContent()).hasSize(2);
+		Assertions.assertThat(page.getTotalElements()).isEqualTo(3);
+		
+		Assertions.assertThat(usernames(memberRepository.searchSlice(condition, null, 10).getContent()))
+				.containsExactly("kim minsu", "kim jisoo", "kim dahye");
+		try(Stream<MemberTeamDto> stream = memberRepository.stream(condition)) {
+			Assertions.assertThat(stream.map(MemberTeamDto::getUsername))
+					.containsExactlyInAnyOrder("kim minsu", "kim jisoo", "kim dahye");
+		}
+		
+		condition.setAgeGoe(20);
+		Assertions.assertThat(usernames(memberRepository.searchPageComplex(condition, PageRequest.of(0, 10)).getContent()))
+				.containsExactlyInAnyOrder("kim jisoo", "kim dahye");
+		
+		Assertions.assertThatThrownBy(() -> search(null, "kim"))
+				.isInstanceOf(InvalidDataAccessApiUsageException.class)
+				.hasRootCauseInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining("max-results");
+	}
+	
+	// 색인이 없으면 쿼리를 만들기 전에 거부
+	@Test
+	public void usernameTextWithoutIndex() throws Exception {
+		MemberFullTextIndex disabled = new MemberFullTextIndex(null, null, null, false, 2);
+		MemberSearchCondition condition = new MemberSearchCondition();
+		condition.setUsernamePrefix("kim");
+		disabled.validate(condition);
+		
+		condition.setUsernameText("minsu");
+		Assertions.assertThatThrownBy(() -> disabled.validate(condition))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining("usernameText");
+	}
+	
+	// 색인은 트리거가 갱신하므로 변경 감지 / 벌크 연산 모두 바로 반영 (조회 전에 flush)
+	@Test
+	public void indexFollowsWrites() {
+		Member kimchi = queryFactory.selectFrom(member).where(member.username.eq("kimchi")).fetchOne();
+		kimchi.setUsername("park minsu");
+		queryFactory.update(member).set(member.username, "lee jisoo").where(member.username.eq("lee minsu")).execute();
+		
+		Assertions.assertThat(usernames(search(null, "minsu"))).containsExactlyInAnyOrder("kim minsu", "park minsu");
+		Assertions.assertThat(usernames(search(null, "jisoo"))).containsExactlyInAnyOrder("kim jisoo", "lee jisoo");
+	}
+	
+	private List<MemberTeamDto> search(String usernamePrefix, String usernameText) {
+		MemberSearchCondition condition = new MemberSearchCondition();
+		condition.setUsernamePrefix(usernamePrefix);
+		condition.setUsernameText(usernameText);
+		return memberRepository.search(condition);
+	}
+	
+	private List<String> usernames(List<MemberTeamDto> dtos) {
+		return dtos.stream().map(MemberTeamDto::getUsername).collect(Collectors.toList());
+	}
+	
+}
@@ -0,0 +1,92 @@
+package study.querydsl.repository;
+
+import static study.querydsl.entity.QMember.member;
+
+import java.util.List;
+
+import javax.persistence.EntityManager;
+
+import org.assertj.core.api.Assertions;
+import org.hibernate.Session;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.monitor.SqlStatementCounter;
+
+@SpringBootTest
+@Transactional
+public class ReadOnlyQueryTest {
+	
+	@Autowired
+	EntityManager em;
+	
+	@Autowired
+	JPAQueryFactory queryFactory;
+	
+	@Autowired
+	MemberRepository memberRepository;
+	
+	@Autowired
+	SqlStatementCounter counter;
+	
+	@BeforeEach
+	public void before() {
+		Team teamA = new Team("teamA");
+		em.persist(teamA);
+		em.persist(new Member("member1", 10, teamA));
+		em.persist(new Member("member2", 20, teamA));
+		em.flush();
+		em.clear();
+	}
+	
+	// 읽기 전용 엔티티는 스냅샷이 없고 변경해도 update 되지 않는다
+	@Test
+	public void readOnlyEntities() {
+		List<Member> members = memberRepository.searchMembers(new MemberSearchCondition());
+		
+		Assertions.assertThat(members).extracting("username").containsExactly("member1", "member2");
+		for(Member each : members) {
+			Assertions.assertThat(em.unwrap(Session.class).isReadOnly(each)).isTrue();
+			Assertions.assertThat(em.unwrap(Session.class).isReadOnly(each.getTeam())).isTrue();
+			Assertions.assertThat(loadedState(each)).isNull();
+			each.setUsername("changed");
+		}
+		
+		try(SqlStatementCounter.Scope scope = counter.start()) {
+			em.flush();
+			Assertions.assertThat(scope.getCount()).isZero();
+		}
+		em.clear();
+		Assertions.assertThat(queryFactory.selectFrom(member).where(member.username.eq("changed")).fetch()).isEmpty();
+	}
+	
+	@Test
+	public void defaultQueryKeepsSnapshot() {
+		List<Member> members = queryFactory.selectFrom(member).fetch();
+		
+		Assertions.assertThat(members).allMatch(each -> loadedState(each) != null);
+	}
+	
+	// 쿼리 실행 전에 자동 flush 하지 않는다 (flush 안 된 변경은 결과에 반영되지 않음)
+	@Test
+	public void manualFlush() {
+		em.persist(new Member("member3", 30));
+		
+		Assertions.assertThat(memberRepository.searchMembers(new MemberSearchCondition())).hasSize(2);
+		Assertions.assertThat(queryFactory.selectFrom(member).fetch()).hasSize(3);
+	}
+	
+	private Object[] loadedState(Member entity) {
+		return em.unwrap(SessionImplementor.class).getPersistenceContextInternal().getEntry(entity).getLoadedState();
+	}
+	
+}
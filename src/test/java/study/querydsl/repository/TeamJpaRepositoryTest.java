@@ -0,0 +1,184 @@
+package study.querydsl.repository;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+import java.util.List;
+
+import javax.persistence.EntityManager;
+
+import org.assertj.core.api.Assertions;
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.monitor.SqlStatementCounter;
+
+// READ_WRITE 캐시는 트랜잭션(세션) 시작 이후에 저장된 값을 그 세션에서 읽지 않으므로
+// 저장 / 조회를 각각 다른 트랜잭션에서 실행한다
+@SpringBootTest
+public class TeamJpaRepositoryTest {
+	
+	@Autowired
+	EntityManager em;
+	
+	@Autowired
+	JPAQueryFactory queryFactory;
+	
+	@Autowired
+	TransactionTemplate transactionTemplate;
+	
+	@Autowired
+	TeamJpaRepository teamJpaRepository;
+	
+	@Autowired
+	SqlStatementCounter counter;
+	
+	Team teamA;
+	Member member1;
+	
+	@BeforeEach
+	public void before() {
+		transactionTemplate.executeWithoutResult(status -> {
+			teamA = new Team("teamA");
+			teamJpaRepository.save(teamA);
+			member1 = new Member("member1", 10, teamA);
+			em.persist(member1);
+		});
+	}
+	
+	@AfterEach
+	public void after() {
+		transactionTemplate.executeWithoutResult(status -> {
+			queryFactory.delete(member).execute();
+			queryFactory.delete(team).execute();
+		});
+	}
+	
+	@Test
+	public void secondLevelCache() {
+		CacheRegionStatistics teamRegion = regionStatistics(Team.CACHE_REGION);
+		
+		transactionTemplate.executeWithoutResult(status -> teamJpaRepository.findById(teamA.getId()));
+		long hit = teamRegion.getHitCount();
+		
+		// member.getTeam() 지연 로딩도 2차 캐시에서 가져온다
+		transactionTemplate.executeWithoutResult(status -> {
+			Member findMember = em.find(Member.class, member1.getId());
+			Assertions.assertThat(findMember.getTeam().getName()).isEqualTo("teamA");
+		});
+		Assertions.assertThat(teamRegion.getHitCount()).isEqualTo(hit + 1);
+	}
+	
+	@Test
+	public void nameQueryCache() {
+		CacheRegionStatistics nameRegion = statistics().getQueryRegionStatistics(Team.NAME_QUERY_CACHE_REGION);
+		
+		transactionTemplate.executeWithoutResult(status ->
+			Assertions.assertThat(teamJpaRepository.findByName("teamA")).get().extracting("id").isEqualTo(teamA.getId()));
+		long hit = nameRegion.getHitCount();
+		
+		transactionTemplate.executeWithoutResult(status -> {
+			Assertions.assertThat(teamJpaRepository.findByName("teamA")).isPresent();
+			Assertions.assertThat(teamJpaRepository.findByName("teamB")).isEmpty();
+		});
+		Assertions.assertThat(nameRegion.getHitCount()).isEqualTo(hit + 1);
+	}
+	
+	// name 은 unique 가 아니다, team 에 쓰기가 있으면 캐시된 결과를 버리고 다시 조회한다
+	@Test
+	public void sameNameTeams() {
+		transactionTemplate.executeWithoutResult(status -> teamJpaRepository.findByName("teamA"));
+		transactionTemplate.executeWithoutResult(status -> teamJpaRepository.save(new Team("teamA")));
+		
+		transactionTemplate.executeWithoutResult(status -> {
+			Assertions.assertThat(queryFactory.selectFrom(team).where(team.name.eq("teamA")).fetch()).hasSize(2);
+			Assertions.assertThat(teamJpaRepository.findByName("teamA")).get().extracting("id").isEqualTo(teamA.getId());
+		});
+	}
+	
+	// 팀 id 페이징 1번 + members fetch join 1번 + count 1번
+	@Test
+	public void findAllWithMembers() {
+		saveTeams(5, 2);
+		
+		transactionTemplate.executeWithoutResult(status -> {
+			try(SqlStatementCounter.Scope scope = counter.start()) {
+				Page<Team> result = teamJpaRepository.findAllWithMembers(PageRequest.of(0, 3));
+				
+				Assertions.assertThat(result.getTotalElements()).isEqualTo(6);
+				Assertions.assertThat(result.getContent()).extracting("name").containsExactly("teamA", "team0", "team1");
+				Assertions.assertThat(result.getContent()).allMatch(each -> Hibernate.isInitialized(each.getMembers()));
+				Assertions.assertThat(result.getContent().get(0).getMembers()).extracting("username").containsExactly("member1");
+				Assertions.assertThat(result.getContent().get(1).getMembers()).hasSize(2);
+				scope.assertAtMost(3);
+			}
+		});
+	}
+	
+	// 한 페이지에 다 들어오면 count 생략
+	@Test
+	public void findAllWithMembersLastPage() {
+		saveTeams(1, 1);
+		
+		transactionTemplate.executeWithoutResult(status -> {
+			try(SqlStatementCounter.Scope scope = counter.start()) {
+				Page<Team> result = teamJpaRepository.findAllWithMembers(PageRequest.of(0, 10));
+				Assertions.assertThat(result.getContent()).hasSize(2);
+				scope.assertAtMost(2);
+			}
+		});
+	}
+	
+	// members 지연 로딩도 default_batch_fetch_size 만큼 묶어서 한 번에 초기화
+	@Test
+	public void batchFetchMembers() {
+		saveTeams(5, 2);
+		
+		transactionTemplate.executeWithoutResult(status -> {
+			try(SqlStatementCounter.Scope scope = counter.start()) {
+				List<Team> teams = queryFactory.selectFrom(team).fetch();
+				for(Team each : teams) {
+					each.getMembers().size();
+				}
+				
+				Assertions.assertThat(scope.getCount()).isEqualTo(2);
+				scope.assertNoNPlusOne();
+			}
+		});
+	}
+	
+	private void saveTeams(int teamCount, int memberCount) {
+		transactionTemplate.executeWithoutResult(status -> {
+			for(int i = 0; i < teamCount; i++) {
+				Team saved = new Team("team" + i);
+				teamJpaRepository.save(saved);
+				for(int j = 0; j < memberCount; j++) {
+					em.persist(new Member("member" + i + "_" + j, 20, saved));
+				}
+			}
+		});
+	}
+	
+	private CacheRegionStatistics regionStatistics(String region) {
+		return statistics().getDomainDataRegionStatistics(region);
+	}
+	
+	private Statistics statistics() {
+		return em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+	}
+	
+}
@@ -0,0 +1,97 @@
+package study.querydsl.repository;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import javax.persistence.EntityManager;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+
+import study.querydsl.dto.TeamStatisticsDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+// 서로 다른 트랜잭션이 같은 팀에 첫 member 를 동시에 넣는 경우 -> 트랜잭션마다 커밋해야 하므로 @Transactional 없이 테스트한다
+@SpringBootTest
+public class TeamStatisticsConcurrencyTest {
+	
+	static final int THREADS = 8;
+	
+	@Autowired
+	EntityManager em;
+	
+	@Autowired
+	JPAQueryFactory queryFactory;
+	
+	@Autowired
+	TransactionTemplate transactionTemplate;
+	
+	@Autowired
+	TeamJpaRepository teamJpaRepository;
+	
+	@AfterEach
+	public void after() {
+		transactionTemplate.executeWithoutResult(status -> {
+			queryFactory.delete(member).execute();
+			queryFactory.delete(team).execute();
+		});
+	}
+	
+	@Test
+	public void concurrentFirstMembers() throws Exception {
+		Long teamId = transactionTemplate.execute(status -> {
+			Team teamA = new Team("teamA");
+			em.persist(teamA);
+			return teamA.getId();
+		});
+		
+		// 모든 트랜잭션이 member 를 persist 한 뒤 동시에 flush / commit
+		CyclicBarrier barrier = new CyclicBarrier(THREADS);
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		try {
+			List<Future<?>> futures = new ArrayList<>();
+			for(int i = 1; i <= THREADS; i++) {
+				int age = i * 10;
+				futures.add(executor.submit(() -> insertMember(teamId, "member" + age, age, barrier)));
+			}
+			for(Future<?> each : futures) {
+				each.get(30, TimeUnit.SECONDS);
+			}
+		} finally {
+			executor.shutdown();
+		}
+		
+		TeamStatisticsDto result = teamJpaRepository.findAllStatistics().get(0);
+		Assertions.assertThat(result.getMemberCount()).isEqualTo(THREADS);
+		Assertions.assertThat(result.getAgeSum()).isEqualTo(10L * THREADS * (THREADS + 1) / 2);
+		Assertions.assertThat(result.getAgeMin()).isEqualTo(10);
+		Assertions.assertThat(result.getAgeMax()).isEqualTo(THREADS * 10);
+	}
+	
+	private void insertMember(Long teamId, String username, int age, CyclicBarrier barrier) {
+		transactionTemplate.executeWithoutResult(status -> {
+			em.persist(new Member(username, age, em.getReference(Team.class, teamId)));
+			try {
+				barrier.await(10, TimeUnit.SECONDS);
+			} catch(Exception e) {
+				throw new IllegalStateException(e);
+			}
+		});
+	}
+	
+}
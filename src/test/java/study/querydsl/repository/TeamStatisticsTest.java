@@ -0,0 +1,248 @@
+package study.querydsl.repository;
+
+import static study.querydsl.entity.QMember.member;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import javax.persistence.EntityManager;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+
+import study.querydsl.dto.TeamStatisticsDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+@SpringBootTest
+@Transactional
+public class TeamStatisticsTest {
+	
+	@Autowired
+	EntityManager em;
+	
+	@Autowired
+	JPAQueryFactory queryFactory;
+	
+	@Autowired
+	TeamJpaRepository teamJpaRepository;
+	
+	@Autowired
+	BulkQueryExecutor bulkQueryExecutor;
+	
+	@Autowired
+	PlatformTransactionManager transactionManager;
+	
+	Team teamA;
+	Team teamB;
+	Team teamC;
+	
+	@BeforeEach
+	public void before() {
+		teamA = new Team("teamA");
+		teamB = new Team("teamB");
+		teamC = new Team("teamC");
+		em.persist(teamA);
+		em.persist(teamB);
+		em.persist(teamC);
+		em.persist(new Member("member1", 10, teamA));
+		em.persist(new Member("member2", 20, teamA));
+		em.persist(new Member("member3", 30, teamB));
+		em.persist(new Member("member4", 40, teamB));
+		em.persist(new Member("member5", 50));
+	}
+	
+	@Test
+	public void insert() {
+		// 조회 전에 flush 되면서 통계에 반영된다
+		assertStatistics(teamA, 2, 30, 10, 20);
+		assertStatistics(teamB, 2, 70, 30, 40);
+		assertStatistics(teamC, 0, 0, null, null);
+		Assertions.assertThat(statistics(teamC).getAgeAvg()).isNull();
+		Assertions.assertThat(statistics(teamA).getAgeAvg()).isEqualTo(15.0);
+		
+		em.persist(new Member("member6", 5, teamC));
+		assertStatistics(teamC, 1, 5, 5, 5);
+		assertSameAsGroupBy();
+	}
+	
+	@Test
+	public void delete() {
+		Member member1 = findMember("member1");
+		em.remove(member1);
+		
+		assertStatistics(teamA, 1, 20, 20, 20);
+		assertSameAsGroupBy();
+	}
+	
+	@Test
+	public void changeAge() {
+		findMember("member2").setAge(5);
+		findMember("member3").setAge(35);
+		
+		assertStatistics(teamA, 2, 15, 5, 10);
+		assertStatistics(teamB, 2, 75, 35, 40);
+		assertSameAsGroupBy();
+	}
+	
+	@Test
+	public void changeTeam() {
+		em.flush();
+		em.clear();
+		
+		// 영속성 컨텍스트에 없는 team 은 프록시로 바꾼다
+		findMember("member1").changeTeam(em.getReference(Team.class, teamB.getId()));
+		findMember("member5").changeTeam(em.getReference(Team.class, teamC.getId()));
+		
+		assertStatistics(teamA, 1, 20, 20, 20);
+		assertStatistics(teamB, 3, 80, 10, 40);
+		assertStatistics(teamC, 1, 50, 50, 50);
+		assertSameAsGroupBy();
+	}
+	
+	@Test
+	public void changesInOneFlush() {
+		Member member6 = new Member("member6", 60, teamC);
+		em.persist(member6);
+		member6.setAge(61);
+		em.remove(findMember("member4"));
+		
+		assertStatistics(teamB, 1, 30, 30, 30);
+		assertStatistics(teamC, 1, 61, 61, 61);
+		assertSameAsGroupBy();
+	}
+	
+	@Test
+	public void bulkUpdate() {
+		em.flush();
+		
+		long count = bulkQueryExecutor.update(member, member.age.lt(25), clause -> clause.set(member.age, member.age.add(100)));
+		
+		Assertions.assertThat(count).isEqualTo(2);
+		assertStatistics(teamA, 2, 230, 110, 120);
+		assertSameAsGroupBy();
+	}
+	
+	@Test
+	public void bulkDelete() {
+		em.flush();
+		
+		bulkQueryExecutor.delete(member, member.team.eq(teamB));
+		
+		assertStatistics(teamB, 0, 0, null, null);
+		assertSameAsGroupBy();
+	}
+	
+	// BulkQueryExecutor 를 거치지 않은 벌크 연산도 다음 조회 전에 다시 계산된다
+	@Test
+	public void rawBulkUpdate() {
+		em.flush();
+		
+		long count = queryFactory.update(member)
+				.set(member.age, member.age.add(100))
+				.where(member.age.lt(25))
+				.execute();
+		
+		Assertions.assertThat(count).isEqualTo(2);
+		assertStatistics(teamA, 2, 230, 110, 120);
+		assertSameAsGroupBy();
+	}
+	
+	@Test
+	public void rawBulkDelete() {
+		em.flush();
+		
+		queryFactory.delete(member).where(member.team.eq(teamB)).execute();
+		
+		assertStatistics(teamB, 0, 0, null, null);
+		assertSameAsGroupBy();
+	}
+	
+	// SQL 로 직접 넣은 team 은 통계 row 가 없다 -> 첫 member 가 생길 때 집계해서 merge
+	// flush 없이 끝난 트랜잭션(롤백, 읽기 전용)의 벌크 쓰기 표시는 다음 트랜잭션으로 넘어가지 않는다
+	@Test
+	public void staleResetOnCompletion() {
+		TransactionTemplate requiresNew = new TransactionTemplate(transactionManager);
+		requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+		requiresNew.executeWithoutResult(status -> {
+			queryFactory.update(member).set(member.age, 0).where(member.username.eq("nobody")).execute();
+			Assertions.assertThat(TeamStatisticsListener.isStale()).isTrue();
+			status.setRollbackOnly();
+		});
+		Assertions.assertThat(TeamStatisticsListener.isStale()).isFalse();
+		
+		requiresNew.setReadOnly(true);
+		requiresNew.executeWithoutResult(status -> {
+			queryFactory.update(member).set(member.age, 0).where(member.username.eq("nobody")).execute();
+			Assertions.assertThat(TeamStatisticsListener.isStale()).isTrue();
+		});
+		Assertions.assertThat(TeamStatisticsListener.isStale()).isFalse();
+		
+		assertSameAsGroupBy();
+	}
+	
+	@Test
+	public void teamWithoutStatisticsRow() {
+		em.flush();
+		em.createNativeQuery("insert into team (id, name) values (-1, 'teamD')").executeUpdate();
+		Team teamD = em.find(Team.class, -1L);
+		
+		em.persist(new Member("member6", 60, teamD));
+		em.persist(new Member("member7", 70, teamD));
+		
+		assertStatistics(teamD, 2, 130, 60, 70);
+		assertSameAsGroupBy();
+	}
+	
+	private void assertStatistics(Team team, long count, long sum, Integer min, Integer max) {
+		TeamStatisticsDto result = statistics(team);
+		Assertions.assertThat(result.getTeamName()).isEqualTo(team.getName());
+		Assertions.assertThat(result.getMemberCount()).isEqualTo(count);
+		Assertions.assertThat(result.getAgeSum()).isEqualTo(sum);
+		Assertions.assertThat(result.getAgeMin()).isEqualTo(min);
+		Assertions.assertThat(result.getAgeMax()).isEqualTo(max);
+	}
+	
+	private TeamStatisticsDto statistics(Team team) {
+		return teamJpaRepository.findAllStatistics().stream()
+				.filter(each -> each.getTeamId().equals(team.getId()))
+				.findFirst()
+				.orElseThrow(IllegalStateException::new);
+	}
+	
+	// group by 로 직접 계산한 결과와 같아야 한다
+	private void assertSameAsGroupBy() {
+		Map<Long, TeamStatisticsDto> statistics = teamJpaRepository.findAllStatistics().stream()
+				.collect(Collectors.toMap(TeamStatisticsDto::getTeamId, Function.identity()));
+		List<Tuple> groupBy = queryFactory
+				.select(member.team.id, member.count(), member.age.sum(), member.age.min(), member.age.max())
+				.from(member)
+				.where(member.team.isNotNull())
+				.groupBy(member.team.id)
+				.fetch();
+		for(Tuple each : groupBy) {
+			TeamStatisticsDto result = statistics.get(each.get(member.team.id));
+			Assertions.assertThat(result.getMemberCount()).isEqualTo(each.get(member.count()));
+			Assertions.assertThat(result.getAgeSum()).isEqualTo(each.get(member.age.sum()).longValue());
+			Assertions.assertThat(result.getAgeMin()).isEqualTo(each.get(member.age.min()));
+			Assertions.assertThat(result.getAgeMax()).isEqualTo(each.get(member.age.max()));
+		}
+	}
+	
+	private Member findMember(String username) {
+		return queryFactory.selectFrom(member).where(member.username.eq(username)).fetchOne();
+	}
+	
+}